@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import groovy.json.JsonSlurper
+
+// the report of the second build, which overwrote the one of the first build
+File report = new File(basedir, 'target/maven-status/maven-resources-plugin/resources/default-resources/metrics.json')
+assert report.isFile() : "missing metrics report $report"
+def metrics = new JsonSlurper().parse(report)
+assert metrics.counters.scanned == 2001
+assert metrics.counters.upToDate == 2001
+assert metrics.counters.copied == 0
+assert metrics.counters.filtered == 0
+assert metrics.counters.bytesWritten == 0
+
+// no output may have been modified, or had its inode changed, by the second build
+def changedSince = evaluate(new File(sharedScripts, 'changed-since.groovy'))
+def outputs = []
+new File(basedir, 'target/classes').eachFileRecurse(groovy.io.FileType.FILES) { outputs << it }
+assert outputs.size() == 2001
+def rewritten = outputs.findAll { changedSince(it, metrics.start) }
+assert rewritten.isEmpty() : "rewritten by the second build: $rewritten"
+
+assert new File(basedir, 'target/classes/version.properties').text == 'version = 1.0\n'
+return true
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+// Generates a deterministic tree of filtered text files with a binary file every tenth one, evaluated by the setup
+// scripts of the incremental integration tests
+Random random = new Random(1)
+File resources = new File(basedir, 'src/main/resources')
+for (int i = 0; i < 2000; i++) {
+    File directory = new File(resources, "d${i % 20}/d${i % 7}")
+    directory.mkdirs()
+    if (i % 10 == 0) {
+        byte[] bytes = new byte[1024 + random.nextInt(8192)]
+        random.nextBytes(bytes)
+        new File(directory, "image${i}.png").bytes = bytes
+    } else {
+        StringBuilder text = new StringBuilder()
+        int lines = 10 + random.nextInt(200)
+        for (int line = 0; line < lines; line++) {
+            text.append("key.${line} = ").append(line % 5 == 0 ? '${app.name}' : "value ${random.nextInt()}").append('\n')
+        }
+        new File(directory, "file${i}.properties").text = text.toString()
+    }
+}
+new File(resources, 'version.properties').text = 'version = ${app.version}\n'
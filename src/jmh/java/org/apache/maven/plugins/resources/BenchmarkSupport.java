@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.Reader;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.maven.api.Project;
+import org.apache.maven.api.plugin.Log;
+import org.apache.maven.shared.filtering.FilterWrapper;
+import org.apache.maven.shared.filtering.FilteringUtils;
+import org.apache.maven.shared.filtering.MavenResourcesExecution;
+import org.apache.maven.shared.filtering.MavenResourcesFiltering;
+import org.apache.maven.shared.filtering.MultiDelimiterInterpolatorFilterReaderLineEnding;
+import org.apache.maven.shared.filtering.Resource;
+import org.codehaus.plexus.interpolation.PropertiesBasedValueSource;
+import org.codehaus.plexus.interpolation.SimpleRecursionInterceptor;
+import org.codehaus.plexus.interpolation.multi.MultiDelimiterStringSearchInterpolator;
+
+/**
+ * Builds what the benchmarks need without a running Maven: filter wrappers set up the way maven-filtering sets up
+ * its default ones, but only resolving the given properties, and executions over a directory.
+ */
+final class BenchmarkSupport {
+
+    /**
+     * The default delimiters followed by more of them, for the benchmarks using many delimiters.
+     */
+    static final List<String> DELIMITERS =
+            List.of("${*}", "@", "#{*}", "%{*}", "$[*]", "{{*}}", "<<*>>", "~");
+
+    private BenchmarkSupport() {
+        // only static helpers
+    }
+
+    /**
+     * @param count the number of delimiters, the default ones first
+     * @return the delimiter specifications
+     */
+    static LinkedHashSet<String> delimiters(int count) {
+        return new LinkedHashSet<>(DELIMITERS.subList(0, count));
+    }
+
+    /**
+     * @param properties the values of the expressions
+     * @param delimiters the delimiter specifications
+     * @param escapeWindowsPaths whether to escape backslashes and colons in the values
+     * @return a single filter wrapper resolving the expressions
+     */
+    static List<FilterWrapper> filterWrappers(
+            Properties properties, LinkedHashSet<String> delimiters, boolean escapeWindowsPaths) {
+        return List.of(new FilterWrapper() {
+            public Reader getReader(Reader reader) {
+                MultiDelimiterStringSearchInterpolator interpolator = new MultiDelimiterStringSearchInterpolator();
+                interpolator.setDelimiterSpecs(delimiters);
+                interpolator.addValueSource(new PropertiesBasedValueSource(properties));
+                if (escapeWindowsPaths) {
+                    interpolator.addPostProcessor((expression, value) ->
+                            value instanceof String ? FilteringUtils.escapeWindowsPath((String) value) : value);
+                }
+                MultiDelimiterInterpolatorFilterReaderLineEnding filterReader =
+                        new MultiDelimiterInterpolatorFilterReaderLineEnding(reader, interpolator, false);
+                filterReader.setRecursionInterceptor(new SimpleRecursionInterceptor());
+                filterReader.setDelimiterSpecs(delimiters);
+                filterReader.setInterpolateWithPrefixPattern(false);
+                return filterReader;
+            }
+        });
+    }
+
+    /**
+     * @param basedir the project directory, holding the resources
+     * @param outputDirectory the output directory
+     * @param resources the resources to process
+     * @param wrappers the filter wrappers
+     * @param delimiters the delimiter specifications
+     * @param fileNameFiltering whether to filter the names of the resources
+     * @return the execution
+     */
+    static MavenResourcesExecution execution(
+            Path basedir,
+            Path outputDirectory,
+            List<Resource> resources,
+            List<FilterWrapper> wrappers,
+            LinkedHashSet<String> delimiters,
+            boolean fileNameFiltering) {
+        MavenResourcesExecution execution = new MavenResourcesExecution(
+                resources, outputDirectory, project(basedir), "UTF-8", List.of(), List.of(), null);
+        execution.setFilterWrappers(wrappers);
+        execution.setDelimiters(delimiters, false);
+        execution.setFilterFilenames(fileNameFiltering);
+        return execution;
+    }
+
+    /**
+     * @param directory the resource directory, relative to the project directory
+     * @param filtering whether the resources are filtered
+     * @return the resource
+     */
+    static Resource resource(String directory, boolean filtering) {
+        Resource resource = new Resource();
+        resource.setDirectory(directory);
+        resource.setFiltering(filtering);
+        return resource;
+    }
+
+    /**
+     * @return a log discarding everything
+     */
+    static Log log() {
+        return proxy(Log.class);
+    }
+
+    /**
+     * @param previous the manifest of the previous build
+     * @param stateDirectory the directory keeping the compiled templates
+     * @return a processor building incrementally on the previous manifest
+     */
+    static ResourceProcessor processor(IncrementalManifest previous, Path stateDirectory) {
+        return new ResourceProcessor(
+                log(),
+                filtering(),
+                "benchmark",
+                previous,
+                new TemplateCache(stateDirectory.resolve("templates"), "benchmark"),
+                new ExecutionMetrics());
+    }
+
+    /**
+     * @return a filtering component filtering all file extensions
+     */
+    private static MavenResourcesFiltering filtering() {
+        return (MavenResourcesFiltering) Proxy.newProxyInstance(
+                BenchmarkSupport.class.getClassLoader(),
+                new Class<?>[] {MavenResourcesFiltering.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("filteredFileExtension")) {
+                        return true;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static Project project(Path basedir) {
+        return (Project) Proxy.newProxyInstance(
+                BenchmarkSupport.class.getClassLoader(), new Class<?>[] {Project.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getBasedir")) {
+                        return basedir;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * @return an implementation doing nothing, returning {@code false} or {@code null}
+     */
+    private static <T> T proxy(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(
+                BenchmarkSupport.class.getClassLoader(),
+                new Class<?>[] {type},
+                (proxy, method, args) -> method.getReturnType() == boolean.class ? Boolean.FALSE : null));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filters one text in memory, through the filter wrappers, by scanning it for the keys it references, and by rendering
+ * its compiled template, for sparse and dense expressions, few and many delimiters, with and without escaping windows
+ * paths.
+ * <p>
+ * {@code renderInto} renders the template into a reused buffer, as the incremental build does: with the GC profiler,
+ * its {@code gc.alloc.rate.norm} should stay near zero bytes per operation, whatever the number of expressions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterBenchmark {
+
+    /**
+     * The number of lines between two lines with expressions.
+     */
+    @Param({"1", "50"})
+    public int expressionEvery;
+
+    @Param({"2", "8"})
+    public int delimiterCount;
+
+    @Param({"false", "true"})
+    public boolean escapeWindowsPaths;
+
+    /**
+     * The size of the text, in kilobytes.
+     */
+    @Param({"64"})
+    public int kilobytes;
+
+    private String text;
+
+    private List<Expressions.Delimiter> delimiters;
+
+    private FilterValues values;
+
+    private CompiledTemplate template;
+
+    private final StringBuilder output = new StringBuilder();
+
+    @Setup
+    public void setUp() throws IOException {
+        LinkedHashSet<String> specs = BenchmarkSupport.delimiters(delimiterCount);
+        delimiters = Expressions.delimiters(specs);
+        Properties properties = new Properties();
+        for (int i = 0; i < 100; i++) {
+            properties.setProperty("key." + i, "C:\\data\\value-" + i);
+        }
+
+        StringBuilder text = new StringBuilder(kilobytes * 1024);
+        for (int line = 0; text.length() < kilobytes * 1024; line++) {
+            if (line % expressionEvery == 0) {
+                Expressions.Delimiter delimiter = delimiters.get(line % delimiters.size());
+                text.append("entry.").append(line).append('=');
+                text.append(delimiter.wrap("key." + line % 100)).append(" and ");
+                text.append(delimiter.wrap("key." + (line + 1) % 100)).append('\n');
+            } else {
+                text.append("# a line of plain text without anything to replace, ").append(line).append('\n');
+            }
+        }
+        this.text = text.toString();
+
+        values = new FilterValues(
+                BenchmarkSupport.filterWrappers(properties, specs, escapeWindowsPaths), delimiters.get(0));
+        template = CompiledTemplate.compile(this.text, delimiters, null, false);
+        if (template == null) {
+            throw new IllegalStateException("The generated text cannot be compiled");
+        }
+        // resolve all values once, as the incremental build does before rendering
+        template.render(values);
+    }
+
+    @Benchmark
+    public String filter() throws IOException {
+        return values.filter(text);
+    }
+
+    @Benchmark
+    public Set<String> keys() {
+        return Expressions.keys(text, delimiters, false);
+    }
+
+    @Benchmark
+    public String render() {
+        return template.render(values);
+    }
+
+    @Benchmark
+    public int renderInto() {
+        output.setLength(0);
+        template.render(values, output);
+        return output.length();
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import org.apache.maven.shared.filtering.FilterWrapper;
+import org.apache.maven.shared.filtering.MavenFilteringException;
+import org.apache.maven.shared.filtering.MavenResourcesExecution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Processes a synthetic resource tree on disk: a full build into an empty output directory, an incremental build with
+ * nothing to do, and an up to date check.
+ * <p>
+ * The scenarios are {@code tinyFiles}, many small filtered files, {@code copiedFiles}, the same files copied without
+ * filtering, {@code largeFiles}, a few large filtered files, {@code hugeFile}, a single filtered file over 2 GB, and
+ * {@code fileNameFiltering}, many small files with expressions in their names. The trees are generated in the system
+ * temporary directory and deleted afterwards; mind the disk space {@code largeFileCount * largeFileMegabytes} and
+ * {@code hugeFileMegabytes} need, twice. Files over {@link ResourceProcessor#MAX_BUFFERED} bytes are streamed rather
+ * than held in memory whole, so the large and huge files only take a few buffers of the heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class ResourceTreeBenchmark {
+
+    @Param({"tinyFiles", "copiedFiles", "largeFiles", "hugeFile", "fileNameFiltering"})
+    public String scenario;
+
+    @Param({"100000"})
+    public int tinyFileCount;
+
+    @Param({"3"})
+    public int largeFileCount;
+
+    @Param({"1024"})
+    public int largeFileMegabytes;
+
+    @Param({"3072"})
+    public int hugeFileMegabytes;
+
+    private Path basedir;
+
+    private Path outputDirectory;
+
+    private Path stateDirectory;
+
+    private MavenResourcesExecution execution;
+
+    private IncrementalManifest built;
+
+    /**
+     * Empties the output directory before each full build.
+     */
+    @State(Scope.Benchmark)
+    public static class EmptyOutput {
+
+        @Setup(Level.Invocation)
+        public void empty(ResourceTreeBenchmark tree) throws IOException {
+            delete(tree.outputDirectory);
+            delete(tree.stateDirectory);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, MavenFilteringException {
+        basedir = Files.createTempDirectory("resources-benchmark");
+        outputDirectory = basedir.resolve("target/classes");
+        stateDirectory = basedir.resolve("target/state");
+        Path resources = Files.createDirectories(basedir.resolve("src/main/resources"));
+
+        Properties properties = new Properties();
+        for (int i = 0; i < 100; i++) {
+            properties.setProperty("key." + i, "value-" + i);
+        }
+        switch (scenario) {
+            case "tinyFiles", "copiedFiles" -> writeTinyFiles(resources, false);
+            case "largeFiles" -> writeLargeFiles(resources, largeFileCount, largeFileMegabytes);
+            case "hugeFile" -> writeLargeFiles(resources, 1, hugeFileMegabytes);
+            case "fileNameFiltering" -> writeTinyFiles(resources, true);
+            default -> throw new IllegalArgumentException("Unknown scenario " + scenario);
+        }
+
+        LinkedHashSet<String> delimiters = BenchmarkSupport.delimiters(2);
+        List<FilterWrapper> wrappers = BenchmarkSupport.filterWrappers(properties, delimiters, false);
+        execution = BenchmarkSupport.execution(
+                basedir,
+                outputDirectory,
+                List.of(BenchmarkSupport.resource("src/main/resources", !scenario.equals("copiedFiles"))),
+                wrappers,
+                delimiters,
+                scenario.equals("fileNameFiltering"));
+        built = BenchmarkSupport.processor(new IncrementalManifest(""), stateDirectory)
+                .process(execution);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        delete(basedir);
+    }
+
+    @Benchmark
+    public IncrementalManifest fullBuild(EmptyOutput empty) throws MavenFilteringException {
+        return BenchmarkSupport.processor(new IncrementalManifest(""), stateDirectory)
+                .process(execution);
+    }
+
+    @Benchmark
+    public IncrementalManifest noOpBuild() throws MavenFilteringException {
+        return BenchmarkSupport.processor(built, stateDirectory).process(execution);
+    }
+
+    @Benchmark
+    public String checkUpToDate() throws MavenFilteringException {
+        return BenchmarkSupport.processor(built, stateDirectory).findChange(execution);
+    }
+
+    /**
+     * Writes small files of a few lines, a thousand per directory.
+     */
+    private void writeTinyFiles(Path resources, boolean expressionInName) throws IOException {
+        for (int i = 0; i < tinyFileCount; i++) {
+            Path directory = Files.createDirectories(resources.resolve("dir" + i / 1000));
+            String name = expressionInName ? "file-${key." + i % 100 + "}-" + i : "file" + i;
+            Files.writeString(
+                    directory.resolve(name + ".properties"), "name=file" + i + "\nvalue=${key." + i % 100 + "}\n");
+        }
+    }
+
+    /**
+     * Writes large files, an expression every ten lines.
+     */
+    private static void writeLargeFiles(Path resources, int count, int megabytes) throws IOException {
+        long size = megabytes * 1024L * 1024L;
+        for (int i = 0; i < count; i++) {
+            try (BufferedWriter writer = Files.newBufferedWriter(resources.resolve("large" + i + ".txt"))) {
+                long written = 0;
+                for (int line = 0; written < size; line++) {
+                    String text = line % 10 == 0
+                            ? "line " + line + " references ${key." + line % 100 + "}\n"
+                            : "line " + line + " is plain text without any expression to replace\n";
+                    writer.write(text);
+                    written += text.length();
+                }
+            }
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        if (Files.exists(directory)) {
+            try (Stream<Path> tree = Files.walk(directory)) {
+                for (Path path : (Iterable<Path>) tree.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
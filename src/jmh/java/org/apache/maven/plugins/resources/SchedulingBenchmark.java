@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the makespan of processing files on several threads, in the order the directory scan gives them or
+ * {@link Workers#plan(List, long[]) planned} by their cost, the largest first and the tiny ones batched.
+ * <p>
+ * Processing a file is simulated by waiting as long as copying it would take at {@code megabytesPerSecond}, plus
+ * {@code fileMicros} for opening and closing it, so that the makespan only depends on the scheduling. The files are
+ * many tiny ones followed by a few large ones, as a scan finds them when the large files sort last.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchedulingBenchmark {
+
+    @Param({"naive", "costAware"})
+    public String scheduling;
+
+    @Param({"8"})
+    public int threads;
+
+    @Param({"20000"})
+    public int tinyFileCount;
+
+    @Param({"4"})
+    public int largeFileCount;
+
+    @Param({"50"})
+    public int largeFileMegabytes;
+
+    @Param({"500"})
+    public int megabytesPerSecond;
+
+    @Param({"20"})
+    public int fileMicros;
+
+    private Workers workers;
+
+    private List<Workers.Task> tasks;
+
+    private long[] costs;
+
+    @Setup
+    public void setUp() {
+        workers = new Workers(BenchmarkSupport.log(), 1, threads, false);
+        tasks = new ArrayList<>();
+        List<Long> sizes = new ArrayList<>();
+        for (int i = 0; i < tinyFileCount; i++) {
+            sizes.add(100L + i % 900);
+        }
+        for (int i = 0; i < largeFileCount; i++) {
+            sizes.add(largeFileMegabytes * 1024L * 1024L);
+        }
+        costs = new long[sizes.size()];
+        for (int i = 0; i < costs.length; i++) {
+            long size = sizes.get(i);
+            costs[i] = size;
+            long nanos = fileMicros * 1000L + size * 1_000_000_000L / (megabytesPerSecond * 1024L * 1024L);
+            tasks.add(() -> {
+                LockSupport.parkNanos(nanos);
+                return size;
+            });
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        workers.close();
+    }
+
+    @Benchmark
+    public void makespan() throws IOException {
+        workers.run(scheduling.equals("costAware") ? workers.plan(tasks, costs) : tasks);
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lends the buffers that copying, digesting and filtering a resource need, so that an execution processing many
+ * resources does not allocate them again for each one.
+ * <p>
+ * The buffers are kept in stripes, one per resource processed at once: a thread takes the buffers of the first full
+ * stripe, starting from one derived from its identity so that threads seldom compete for the same stripe, and gives
+ * them back once its resource is processed. A thread finding all stripes empty allocates new buffers, and buffers
+ * given back while all stripes are full are dropped, so that the pool never blocks.
+ * <p>
+ * Bytes go through a direct buffer, which file channels read and write without copying. Characters go through a heap
+ * buffer since readers only fill arrays, and the text they give is accumulated in a builder that is shrunk again after
+ * a large resource.
+ *
+ * @since 4.0.0-beta-2
+ */
+final class BufferPool {
+
+    static final int BYTES = 32 * 1024;
+
+    static final int CHARS = 8 * 1024;
+
+    /**
+     * The largest text kept between two resources.
+     */
+    private static final int MAX_TEXT = 1024 * 1024;
+
+    /**
+     * The buffers of one resource, until closed.
+     */
+    final class Buffers implements AutoCloseable {
+
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(BYTES);
+
+        private final CharBuffer chars = CharBuffer.allocate(CHARS);
+
+        private final MessageDigest digest = IncrementalManifest.newDigest();
+
+        private StringBuilder text = new StringBuilder();
+
+        private Buffers() {}
+
+        /**
+         * Copies the source to the target.
+         *
+         * @return the digest of the content copied
+         * @throws IOException if the source cannot be read or the target written
+         */
+        String copy(Path source, Path target) throws IOException {
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                    FileChannel out = FileChannel.open(
+                            target,
+                            StandardOpenOption.WRITE,
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING)) {
+                digest.reset();
+                while (in.read(bytes.clear()) >= 0) {
+                    bytes.flip();
+                    digest.update(bytes);
+                    bytes.rewind();
+                    while (bytes.hasRemaining()) {
+                        out.write(bytes);
+                    }
+                }
+            }
+            return IncrementalManifest.hex(digest.digest());
+        }
+
+        /**
+         * @return the digest of the content of the file
+         * @throws IOException if the file cannot be read
+         */
+        String digest(Path file) throws IOException {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                digest.reset();
+                while (in.read(bytes.clear()) >= 0) {
+                    digest.update(bytes.flip());
+                }
+            }
+            return IncrementalManifest.hex(digest.digest());
+        }
+
+        /**
+         * @return whether the file holds exactly the content
+         * @throws IOException if the file cannot be read
+         */
+        boolean holds(Path file, byte[] content) throws IOException {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (in.size() != content.length) {
+                    return false;
+                }
+                int offset = 0;
+                while (in.read(bytes.clear()) >= 0) {
+                    bytes.flip();
+                    if (offset + bytes.remaining() > content.length) {
+                        return false;
+                    }
+                    for (int i = 0; i < bytes.limit(); i++) {
+                        if (bytes.get(i) != content[offset++]) {
+                            return false;
+                        }
+                    }
+                }
+                return offset == content.length;
+            }
+        }
+
+        /**
+         * Reads all the characters of the reader, and closes it.
+         *
+         * @return the characters read
+         * @throws IOException if the reader fails
+         */
+        String read(Reader reader) throws IOException {
+            try (Reader in = reader) {
+                while (in.read(chars.clear()) >= 0) {
+                    text.append(chars.array(), 0, chars.position());
+                }
+                return text.toString();
+            } finally {
+                text.setLength(0);
+            }
+        }
+
+        /**
+         * @return the template rendered with the values
+         */
+        String render(CompiledTemplate template, FilterValues values) {
+            try {
+                template.render(values, text);
+                return text.toString();
+            } finally {
+                text.setLength(0);
+            }
+        }
+
+        /**
+         * @return whether rendering the template with the values gives the expected text, compared in place
+         */
+        boolean renders(CompiledTemplate template, FilterValues values, String expected) {
+            try {
+                template.render(values, text);
+                return expected.contentEquals(text);
+            } finally {
+                text.setLength(0);
+            }
+        }
+
+        /**
+         * Writes all the characters of the reader, and closes it.
+         *
+         * @throws IOException if the reader or the writer fails
+         */
+        void transfer(Reader reader, Writer writer) throws IOException {
+            try (Reader in = reader) {
+                while (in.read(chars.clear()) >= 0) {
+                    writer.write(chars.array(), 0, chars.position());
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void close() {
+            if (text.capacity() > MAX_TEXT) {
+                text = new StringBuilder();
+            }
+            give(this);
+        }
+    }
+
+    private final AtomicReferenceArray<Buffers> stripes;
+
+    /**
+     * @param stripes the most resources processed at once
+     */
+    BufferPool(int stripes) {
+        this.stripes = new AtomicReferenceArray<>(Math.max(1, stripes));
+    }
+
+    /**
+     * @return the buffers to close once the resource is processed
+     */
+    Buffers take() {
+        int start = start();
+        for (int i = 0; i < stripes.length(); i++) {
+            Buffers buffers = stripes.getAndSet((start + i) % stripes.length(), null);
+            if (buffers != null) {
+                return buffers;
+            }
+        }
+        return new Buffers();
+    }
+
+    private void give(Buffers buffers) {
+        int start = start();
+        for (int i = 0; i < stripes.length(); i++) {
+            if (stripes.compareAndSet((start + i) % stripes.length(), null, buffers)) {
+                return;
+            }
+        }
+    }
+
+    private int start() {
+        return (System.identityHashCode(Thread.currentThread()) & Integer.MAX_VALUE) % stripes.length();
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import org.apache.maven.shared.filtering.MavenFilteringException;
+import org.apache.maven.shared.filtering.MavenResourcesExecution;
+import org.apache.maven.shared.filtering.MavenResourcesFiltering;
+
+/**
+ * A user filter component of {@code mavenFilteringHints} told what changed since the previous build, so that it only
+ * does the work these changes call for.
+ * <p>
+ * The plugin calls {@link #filterResources(MavenResourcesExecution, ResourceChanges)} instead of
+ * {@link MavenResourcesFiltering#filterResources(MavenResourcesExecution)} on the components implementing this
+ * interface.
+ *
+ * @since 4.0.0-beta-2
+ */
+public interface ChangeAwareFiltering {
+
+    /**
+     * @param mavenResourcesExecution the execution, as given to
+     *        {@link MavenResourcesFiltering#filterResources(MavenResourcesExecution)}
+     * @param changes what changed since the previous build
+     * @throws MavenFilteringException in case of failure
+     */
+    void filterResources(MavenResourcesExecution mavenResourcesExecution, ResourceChanges changes)
+            throws MavenFilteringException;
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A filtered resource split once into literal segments and expression slots, so that filtering it again for other
+ * values is a concatenation rather than a new scan for delimiters and escapes.
+ * <p>
+ * A template is only compiled when every position an expression could begin at is either one of its slots or an
+ * escaped expression: the interpolator of maven-filtering may then not find any other expression, whatever the values
+ * are. The caller still has to {@linkplain #render(FilterValues) render} it once against the output of a complete
+ * filtering before relying on it.
+ * <p>
+ * Escaped expressions are turned into literals when compiling, and the values come resolved, windows paths escaped,
+ * from {@link FilterValues}, so rendering only appends: {@linkplain #render(FilterValues, StringBuilder) rendering}
+ * into a reused buffer allocates nothing once the values are resolved.
+ *
+ * @since 4.0.0-beta-2
+ */
+final class CompiledTemplate {
+
+    /**
+     * The literal segments and the slot expressions, alternating and starting with a literal segment, which may be
+     * empty.
+     */
+    private final String[] parts;
+
+    /**
+     * The length of all the literal segments.
+     */
+    private final int literalLength;
+
+    private CompiledTemplate(String[] parts) {
+        this.parts = parts;
+        int length = 0;
+        for (int i = 0; i < parts.length; i += 2) {
+            length += parts[i].length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * @param text the content of the resource
+     * @param delimiters the delimiters denoting an expression
+     * @param escapeString the string escaping an expression, {@code null} or empty for none
+     * @param multiLine whether an expression may span several lines
+     * @return the compiled template, or {@code null} if the content is too ambiguous to be compiled safely
+     */
+    static CompiledTemplate compile(
+            String text, List<Expressions.Delimiter> delimiters, String escapeString, boolean multiLine) {
+        boolean escaping = escapeString != null && !escapeString.isEmpty();
+        boolean[] consumed = new boolean[text.length()];
+        List<String> parts = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            if (escaping && Expressions.startsWith(text, escapeString, i)) {
+                int begin = i + escapeString.length();
+                Expressions.Delimiter delimiter = expressionAt(text, delimiters, begin, multiLine);
+                if (delimiter != null) {
+                    int end = Expressions.expressionEnd(text, delimiter, begin, multiLine)
+                            + delimiter.end().length();
+                    consumed[begin] = true;
+                    literal.append(text, begin, end);
+                    i = end;
+                    continue;
+                }
+            }
+            Expressions.Delimiter delimiter = expressionAt(text, delimiters, i, multiLine);
+            if (delimiter != null) {
+                int end = Expressions.expressionEnd(text, delimiter, i, multiLine) + delimiter.end().length();
+                consumed[i] = true;
+                parts.add(literal.toString());
+                parts.add(text.substring(i, end));
+                literal.setLength(0);
+                i = end;
+                continue;
+            }
+            literal.append(text.charAt(i++));
+        }
+        parts.add(literal.toString());
+
+        for (int position = 0; position < text.length(); position++) {
+            if (!consumed[position] && expressionAt(text, delimiters, position, multiLine) != null) {
+                return null;
+            }
+        }
+        return new CompiledTemplate(parts.toArray(new String[0]));
+    }
+
+    private static Expressions.Delimiter expressionAt(
+            String text, List<Expressions.Delimiter> delimiters, int offset, boolean multiLine) {
+        for (Expressions.Delimiter delimiter : delimiters) {
+            if (Expressions.expressionEnd(text, delimiter, offset, multiLine) >= 0) {
+                return delimiter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param values the current filter values
+     * @return the filtered content
+     */
+    String render(FilterValues values) {
+        StringBuilder result = new StringBuilder(literalLength + 16 * slots());
+        render(values, result);
+        return result.toString();
+    }
+
+    /**
+     * @param values the current filter values
+     * @param output the buffer the filtered content is appended to
+     */
+    void render(FilterValues values, StringBuilder output) {
+        output.ensureCapacity(output.length() + literalLength);
+        for (int i = 0; i < parts.length; i++) {
+            output.append(i % 2 == 0 ? parts[i] : values.value(parts[i]));
+        }
+    }
+
+    /**
+     * @return the number of expression slots
+     */
+    int slots() {
+        return parts.length / 2;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(parts.length);
+        for (String part : parts) {
+            byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    static CompiledTemplate read(DataInput in) throws IOException {
+        String[] parts = new String[in.readInt()];
+        for (int i = 0; i < parts.length; i++) {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            parts[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new CompiledTemplate(parts);
+    }
+}
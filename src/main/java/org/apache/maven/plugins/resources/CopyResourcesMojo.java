@@ -19,6 +19,7 @@
 package org.apache.maven.plugins.resources;
 
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.maven.api.plugin.annotations.Mojo;
@@ -40,6 +41,35 @@ public class CopyResourcesMojo extends ResourcesMojo {
     @Parameter(required = true)
     private Path outputDirectory;
 
+    /**
+     * <p>
+     * Further directories receiving the same outputs as {@link #outputDirectory}, such as an exploded web application
+     * and a container build context. The resources are only read and filtered once: their outputs are written to
+     * {@link #outputDirectory}, then written again into each of these directories, or hard linked there if
+     * {@code link} is set and the file system allows it. A {@code targetPath} places the outputs below that path of
+     * the directory. Outputs written outside {@link #outputDirectory}, by resources with an absolute target path, are
+     * not copied.
+     * </p>
+     * <pre>
+     * &lt;outputDirectories&gt;
+     *   &lt;outputDirectory&gt;
+     *     &lt;directory&gt;${project.build.directory}/docker&lt;/directory&gt;
+     *     &lt;targetPath&gt;config&lt;/targetPath&gt;
+     *     &lt;link&gt;true&lt;/link&gt;
+     *   &lt;/outputDirectory&gt;
+     * &lt;/outputDirectories&gt;
+     * </pre>
+     * <p>
+     * The outputs are written one file at a time as with {@code incremental}, whose state this enables: a later build
+     * only processes the resources that changed, and deletes the outputs of the deleted resources from all the
+     * directories.
+     * </p>
+     *
+     * @since 4.0.0-beta-2
+     */
+    @Parameter
+    private List<OutputDirectory> outputDirectories;
+
     /**
      * The list of resources we want to transfer. See the Maven Model for a
      * description of how to code the resources element.
@@ -57,6 +87,18 @@ public class CopyResourcesMojo extends ResourcesMojo {
         this.outputDirectory = outputDirectory;
     }
 
+    /** {@inheritDoc} */
+    public List<OutputDirectory> getOutputDirectories() {
+        return outputDirectories == null ? Collections.emptyList() : outputDirectories;
+    }
+
+    /**
+     * @param outputDirectories {@link #outputDirectories}
+     */
+    public void setOutputDirectories(List<OutputDirectory> outputDirectories) {
+        this.outputDirectories = outputDirectories;
+    }
+
     /** {@inheritDoc} */
     public List<Resource> getResources() {
         return resources;
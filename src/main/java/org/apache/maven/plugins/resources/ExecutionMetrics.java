@@ -0,0 +1,378 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what one resources execution did and how long each of its phases took, in wall clock and CPU time.
+ * <p>
+ * The same phase may be timed several times, for instance once per resource directory, its times add up. Counters and
+ * phases may be updated from several threads. The slowest files and the files giving the largest outputs are kept as
+ * {@link TopFiles}, if asked for.
+ *
+ * @since 4.0.0-beta-2
+ */
+final class ExecutionMetrics {
+
+    /**
+     * What an execution counts.
+     */
+    enum Counter {
+        SCANNED("scanned"),
+        EXCLUDED("excluded"),
+        COPIED("copied"),
+        FILTERED("filtered"),
+        UP_TO_DATE("upToDate"),
+        DELETED("deleted"),
+        STREAMED("streamed"),
+        BYTES_READ("bytesRead"),
+        BYTES_WRITTEN("bytesWritten");
+
+        private final String key;
+
+        Counter(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Times one phase until closed. The CPU time of the phase is the one of the thread that started it, plus the one of
+     * the {@link #measure(Workers.Task) measured} tasks run on other threads.
+     */
+    final class Timer implements AutoCloseable {
+
+        private final String phase;
+
+        private final Thread thread = Thread.currentThread();
+
+        private final long wallStart = System.nanoTime();
+
+        private final long cpuStart = cpuTime();
+
+        private final LongAdder otherCpu = new LongAdder();
+
+        private volatile boolean otherCpuUnknown;
+
+        private Timer(String phase) {
+            this.phase = phase;
+        }
+
+        /**
+         * @param task a part of the phase, which may run on another thread
+         * @return the task, adding the CPU time it takes on another thread to the phase
+         */
+        Workers.Task measure(Workers.Task task) {
+            return new Workers.Task() {
+                /** {@inheritDoc} */
+                public long run() throws IOException {
+                    if (Thread.currentThread() == thread) {
+                        return task.run();
+                    }
+                    long start = cpuTime();
+                    try {
+                        return task.run();
+                    } finally {
+                        long end = cpuTime();
+                        if (start < 0 || end < 0) {
+                            otherCpuUnknown = true;
+                        } else {
+                            otherCpu.add(end - start);
+                        }
+                    }
+                }
+
+                /** {@inheritDoc} */
+                public int files() {
+                    return task.files();
+                }
+            };
+        }
+
+        /** {@inheritDoc} */
+        public void close() {
+            long cpu = cpuStart < 0 || otherCpuUnknown ? -1 : cpuTime() - cpuStart + otherCpu.sum();
+            record(phase, System.nanoTime() - wallStart, cpu);
+        }
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final long start = System.currentTimeMillis();
+
+    private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+
+    /**
+     * Wall and CPU nanoseconds per phase, in the order the phases were first timed.
+     */
+    private final Map<String, long[]> phases = new LinkedHashMap<>();
+
+    private final TopFiles slowest;
+
+    private final TopFiles largest;
+
+    private volatile int threads;
+
+    ExecutionMetrics() {
+        this(0);
+    }
+
+    /**
+     * @param topFiles the number of slowest and largest files to keep
+     */
+    ExecutionMetrics(int topFiles) {
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new LongAdder());
+        }
+        slowest = new TopFiles(topFiles);
+        largest = new TopFiles(topFiles);
+    }
+
+    /**
+     * @param counter the counter to increase
+     * @param amount the amount to add
+     */
+    void add(Counter counter, long amount) {
+        counters.get(counter).add(amount);
+    }
+
+    /**
+     * @param counter a counter
+     * @return its current value
+     */
+    long get(Counter counter) {
+        return counters.get(counter).sum();
+    }
+
+    /**
+     * Ranks a file just copied or filtered.
+     *
+     * @param source the source file
+     * @param nanos the time it took
+     * @param outputSize the size of its output
+     */
+    void file(Path source, long nanos, long outputSize) {
+        slowest.offer(source, nanos);
+        largest.offer(source, outputSize);
+    }
+
+    /**
+     * @return the files that took the longest to process, in nanoseconds
+     */
+    List<TopFiles.Item> slowest() {
+        return slowest.items();
+    }
+
+    /**
+     * @return the files giving the largest outputs, in bytes
+     */
+    List<TopFiles.Item> largest() {
+        return largest.items();
+    }
+
+    /**
+     * @param threads the number of files processed at once by the end of the execution
+     */
+    void threads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @return the number of files processed at once by the end of the execution, {@code 0} if not processed in parallel
+     */
+    int threads() {
+        return threads;
+    }
+
+    /**
+     * @param phase the name of the phase
+     * @return the timer to close once the phase is over
+     */
+    Timer time(String phase) {
+        return new Timer(phase);
+    }
+
+    private synchronized void record(String phase, long wall, long cpu) {
+        long[] times = phases.computeIfAbsent(phase, p -> new long[2]);
+        times[0] += wall;
+        times[1] = times[1] < 0 || cpu < 0 ? -1 : times[1] + cpu;
+    }
+
+    /**
+     * @return when the execution started, in milliseconds since the epoch
+     */
+    long start() {
+        return start;
+    }
+
+    /**
+     * @return a one line summary of the phase times, and of the counters if files were counted
+     */
+    synchronized String summary() {
+        long total = 0;
+        StringBuilder times = new StringBuilder();
+        for (Map.Entry<String, long[]> phase : phases.entrySet()) {
+            total += phase.getValue()[0];
+            times.append(times.length() > 0 ? ", " : "")
+                    .append(phase.getKey())
+                    .append(' ')
+                    .append(phase.getValue()[0] / 1_000_000)
+                    .append(" ms");
+        }
+        StringBuilder summary = new StringBuilder().append(total / 1_000_000).append(" ms");
+        if (times.length() > 0) {
+            summary.append(" (").append(times).append(')');
+        }
+        if (get(Counter.SCANNED) > 0) {
+            summary.append(": ").append(get(Counter.SCANNED)).append(" scanned, ");
+            summary.append(get(Counter.EXCLUDED)).append(" excluded, ");
+            summary.append(get(Counter.COPIED)).append(" copied, ");
+            summary.append(get(Counter.FILTERED)).append(" filtered, ");
+            summary.append(get(Counter.UP_TO_DATE)).append(" up to date, ");
+            if (get(Counter.DELETED) > 0) {
+                summary.append(get(Counter.DELETED)).append(" deleted, ");
+            }
+            if (get(Counter.STREAMED) > 0) {
+                summary.append(get(Counter.STREAMED)).append(" streamed, ");
+            }
+            summary.append(bytes(get(Counter.BYTES_READ))).append(" read, ");
+            summary.append(bytes(get(Counter.BYTES_WRITTEN))).append(" written");
+            if (threads > 0) {
+                summary.append(", ").append(threads).append(" at once");
+            }
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Writes all counters and phase times as a JSON object.
+     *
+     * @param file the report file
+     * @param project the identifier of the project
+     * @param execution the identifier of the execution
+     * @throws IOException if the report cannot be written
+     */
+    synchronized void write(Path file, String project, String execution) throws IOException {
+        StringBuilder json = header(project, execution);
+        if (threads > 0) {
+            json.append("  \"threads\": ").append(threads).append(",\n");
+        }
+        json.append("  \"counters\": {");
+        String separator = "\n";
+        for (Counter counter : Counter.values()) {
+            json.append(separator).append("    \"").append(counter.key).append("\": ").append(get(counter));
+            separator = ",\n";
+        }
+        json.append("\n  },\n");
+        json.append("  \"phases\": {");
+        separator = "\n";
+        for (Map.Entry<String, long[]> phase : phases.entrySet()) {
+            json.append(separator).append("    \"").append(escape(phase.getKey())).append("\": {");
+            json.append("\"wallMillis\": ").append(phase.getValue()[0] / 1_000_000).append(", ");
+            json.append("\"cpuMillis\": ").append(phase.getValue()[1] < 0 ? -1 : phase.getValue()[1] / 1_000_000);
+            json.append('}');
+            separator = ",\n";
+        }
+        json.append(phases.isEmpty() ? "}\n" : "\n  }\n");
+        json.append("}\n");
+        write(file, json);
+    }
+
+    /**
+     * Writes the slowest files and the files giving the largest outputs as a JSON object.
+     *
+     * @param file the report file
+     * @param project the identifier of the project
+     * @param execution the identifier of the execution
+     * @throws IOException if the report cannot be written
+     */
+    void writeTopFiles(Path file, String project, String execution) throws IOException {
+        StringBuilder json = header(project, execution);
+        json.append("  \"slowest\": [");
+        String separator = "\n";
+        for (TopFiles.Item item : slowest()) {
+            json.append(separator).append("    {\"source\": \"").append(escape(item.source().toString()));
+            json.append("\", \"micros\": ").append(item.value() / 1000).append('}');
+            separator = ",\n";
+        }
+        json.append(slowest().isEmpty() ? "],\n" : "\n  ],\n");
+        json.append("  \"largest\": [");
+        separator = "\n";
+        for (TopFiles.Item item : largest()) {
+            json.append(separator).append("    {\"source\": \"").append(escape(item.source().toString()));
+            json.append("\", \"bytes\": ").append(item.value()).append('}');
+            separator = ",\n";
+        }
+        json.append(largest().isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        write(file, json);
+    }
+
+    private StringBuilder header(String project, String execution) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"project\": \"").append(escape(project)).append("\",\n");
+        json.append("  \"execution\": \"").append(escape(execution)).append("\",\n");
+        json.append("  \"start\": ").append(start).append(",\n");
+        return json;
+    }
+
+    private static void write(Path file, CharSequence json) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    static String bytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        } else if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f kB", bytes / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024));
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the {@link Expressions#keys(CharSequence, List, boolean) expression keys} of the characters read through it,
+ * for the resources that are streamed rather than read completely.
+ * <p>
+ * Since every position is tried as the beginning of an expression, whatever precedes it, the characters are scanned
+ * {@value #RUN} at a time, and only the current run is held. Each run overlaps the previous one by the longest
+ * expression, a key of {@link Expressions#MAX_KEY} characters within its tokens, so that an expression crossing the end
+ * of a run is found whole in the next one, and the keys are exactly those of the whole text.
+ *
+ * @since 4.0.0-beta-2
+ */
+final class ExpressionKeysReader extends FilterReader {
+
+    private static final int RUN = 65536;
+
+    private final List<Expressions.Delimiter> delimiters;
+
+    private final boolean multiLine;
+
+    private final int overlap;
+
+    private final Set<String> keys = new LinkedHashSet<>();
+
+    private final StringBuilder run = new StringBuilder();
+
+    /**
+     * @param in the characters to scan
+     * @param delimiters the delimiters denoting an expression
+     * @param multiLine whether an expression may span several lines
+     */
+    ExpressionKeysReader(Reader in, List<Expressions.Delimiter> delimiters, boolean multiLine) {
+        super(in);
+        this.delimiters = delimiters;
+        this.multiLine = multiLine;
+        int tokens = 0;
+        for (Expressions.Delimiter delimiter : delimiters) {
+            tokens = Math.max(tokens, delimiter.begin().length() + delimiter.end().length());
+        }
+        this.overlap = Expressions.MAX_KEY + tokens;
+    }
+
+    /** {@inheritDoc} */
+    public int read() throws IOException {
+        int c = super.read();
+        if (c >= 0) {
+            scan((char) c);
+        } else {
+            flush(0);
+        }
+        return c;
+    }
+
+    /** {@inheritDoc} */
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read < 0) {
+            flush(0);
+        }
+        for (int i = 0; i < read; i++) {
+            scan(buffer[offset + i]);
+        }
+        return read;
+    }
+
+    /** {@inheritDoc} */
+    public long skip(long n) throws IOException {
+        char[] skipped = new char[(int) Math.min(Math.max(n, 0), 8192)];
+        long total = 0;
+        for (int read; total < n && (read = read(skipped, 0, (int) Math.min(skipped.length, n - total))) > 0; ) {
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * @return the keys of all expressions read so far, in order of first appearance
+     */
+    Set<String> keys() {
+        flush(0);
+        return keys;
+    }
+
+    private void scan(char c) {
+        run.append(c);
+        if (run.length() >= RUN) {
+            flush(overlap);
+        }
+    }
+
+    /**
+     * Scans the current run, then keeps its last characters.
+     */
+    private void flush(int keep) {
+        if (run.length() > keep) {
+            keys.addAll(Expressions.keys(run, delimiters, multiLine));
+            run.delete(0, run.length() - keep);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the expressions a filtered resource references, using the same delimiter specifications as
+ * {@link ResourcesMojo#delimiters}.
+ * <p>
+ * As in maven-filtering, a key is anything between the tokens, whitespace included, up to {@value #MAX_KEY}
+ * characters.
+ * <p>
+ * The result is an over-approximation: escaped expressions and expressions that will not resolve are reported as
+ * well. That is what incremental filtering needs, since a key reported by mistake only costs a re-filtering, while a
+ * missed key would leave a stale output behind.
+ *
+ * @since 4.0.0-beta-2
+ */
+final class Expressions {
+
+    static final List<String> DEFAULT_DELIMITERS = List.of("${*}", "@");
+
+    /**
+     * The longest key, the read-ahead limit of maven-filtering, which leaves longer expressions alone. Without it, a
+     * single {@code @} on a long minified line would give a key running up to the next one.
+     */
+    static final int MAX_KEY = 8192;
+
+    private Expressions() {}
+
+    /**
+     * A begin and end token pair, parsed from a {@code beginToken*endToken} specification.
+     */
+    record Delimiter(String begin, String end) {
+
+        static Delimiter parse(String spec) {
+            int split = spec.indexOf('*');
+            if (split < 0) {
+                return new Delimiter(spec, spec);
+            } else if (split == spec.length() - 1) {
+                String token = spec.substring(0, split);
+                return new Delimiter(token, token);
+            } else {
+                return new Delimiter(spec.substring(0, split), spec.substring(split + 1));
+            }
+        }
+
+        /**
+         * @param key the expression key
+         * @return the key surrounded by this delimiter
+         */
+        String wrap(String key) {
+            return begin + key + end;
+        }
+    }
+
+    /**
+     * @param specs the delimiter specifications, {@code null} or empty for the defaults
+     * @return the parsed delimiters
+     */
+    static List<Delimiter> delimiters(Collection<String> specs) {
+        Collection<String> effective = specs == null || specs.isEmpty() ? DEFAULT_DELIMITERS : specs;
+        List<Delimiter> result = new ArrayList<>(effective.size());
+        for (String spec : effective) {
+            if (spec != null && !spec.isEmpty()) {
+                result.add(Delimiter.parse(spec));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param text the content to search
+     * @param delimiters the delimiters denoting an expression
+     * @param multiLine whether an expression may span several lines, see
+     *            {@code ResourcesMojo#supportMultiLineFiltering}
+     * @return the keys of all expressions found, in order of first appearance
+     */
+    static Set<String> keys(CharSequence text, List<Delimiter> delimiters, boolean multiLine) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < text.length(); i++) {
+            for (Delimiter delimiter : delimiters) {
+                int end = expressionEnd(text, delimiter, i, multiLine);
+                if (end >= 0) {
+                    keys.add(text.subSequence(i + delimiter.begin().length(), end)
+                            .toString());
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @param text the content to search
+     * @param delimiter the delimiter to look for
+     * @param offset the position the expression must begin at
+     * @param multiLine whether the expression may span several lines
+     * @return the position of the end token of the expression beginning at {@code offset}, or {@code -1} if there is
+     *         no such expression
+     */
+    static int expressionEnd(CharSequence text, Delimiter delimiter, int offset, boolean multiLine) {
+        if (!startsWith(text, delimiter.begin(), offset)) {
+            return -1;
+        }
+        int start = offset + delimiter.begin().length();
+        int end = indexOf(text, delimiter.end(), start, multiLine, start + MAX_KEY);
+        return end > start ? end : -1;
+    }
+
+    static boolean startsWith(CharSequence text, String token, int offset) {
+        if (token.isEmpty() || offset + token.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (text.charAt(offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(CharSequence text, String token, int from, boolean multiLine, int last) {
+        for (int i = from; i <= last && i < text.length(); i++) {
+            if (startsWith(text, token, i)) {
+                return i;
+            }
+            char c = text.charAt(i);
+            if (!multiLine && (c == '\n' || c == '\r')) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+}
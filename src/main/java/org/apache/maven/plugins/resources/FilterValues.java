@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.shared.filtering.FilterWrapper;
+
+/**
+ * Resolves expression values through the filter wrappers of an execution, so that a value is exactly what filtering a
+ * resource would produce for it, including filter files, project and session properties and
+ * {@link ResourcesMojo#escapeWindowsPaths}.
+ * <p>
+ * Each value and its digest are resolved once. Looking up a resolved one allocates nothing, which is what
+ * {@link CompiledTemplate#render(FilterValues, StringBuilder)} relies on for expression-dense resources.
+ *
+ * @since 4.0.0-beta-2
+ */
+final class FilterValues {
+
+    private final List<FilterWrapper> wrappers;
+
+    private final Expressions.Delimiter delimiter;
+
+    private final Map<String, String> resolved = new ConcurrentHashMap<>();
+
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();
+
+    /**
+     * @param wrappers the filter wrappers of the execution
+     * @param delimiter the delimiter used to form an expression from a key
+     */
+    FilterValues(List<FilterWrapper> wrappers, Expressions.Delimiter delimiter) {
+        this.wrappers = wrappers;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * @param text the text to filter
+     * @return the text with all expressions replaced
+     * @throws IOException if a filter wrapper fails
+     */
+    String filter(String text) throws IOException {
+        Reader reader = filter(new StringReader(text));
+        StringBuilder result = new StringBuilder(text.length());
+        try (Reader filtered = reader) {
+            char[] buffer = new char[8192];
+            for (int read; (read = filtered.read(buffer)) >= 0; ) {
+                result.append(buffer, 0, read);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * @param reader the characters to filter
+     * @return the characters with all expressions replaced, as they are read
+     */
+    Reader filter(Reader reader) {
+        for (FilterWrapper wrapper : wrappers) {
+            reader = wrapper.getReader(reader);
+        }
+        return reader;
+    }
+
+    /**
+     * @param expression a single expression, delimiters included
+     * @return the value the expression resolves to, or the expression itself if it does not resolve
+     */
+    String value(String expression) {
+        String value = resolved.get(expression);
+        if (value != null) {
+            return value;
+        }
+        return resolved.computeIfAbsent(expression, e -> {
+            try {
+                return filter(e);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * @param key an expression key
+     * @return the digest of the value the key resolves to
+     */
+    String hash(String key) {
+        String hash = hashes.get(key);
+        if (hash != null) {
+            return hash;
+        }
+        return hashes.computeIfAbsent(key, k -> IncrementalManifest.digest(value(delimiter.wrap(k))));
+    }
+}
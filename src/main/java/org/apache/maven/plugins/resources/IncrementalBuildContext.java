@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.apache.maven.api.plugin.Log;
+import org.codehaus.plexus.util.DirectoryScanner;
+import org.codehaus.plexus.util.Scanner;
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+/**
+ * A {@link BuildContext} keeping the stamps of the files it reported between builds, so that
+ * {@link #newScanner(File, boolean)} only returns the files that changed since the previous build, and
+ * {@link #newDeleteScanner(File)} the files that were deleted, in command line builds too.
+ * <p>
+ * A file has a delta when it was not seen by the previous build, when its size or modification time changed, or when
+ * it is one of the files known to have changed otherwise, such as the resources referencing a changed filter value.
+ * The stamps of the files seen by this build only replace the stored ones on {@link #commit()}, so that a failed build
+ * reports the same deltas again.
+ * <p>
+ * The context may be used from several threads at once, by the user filter components running concurrently.
+ *
+ * @since 4.0.0-beta-2
+ */
+class IncrementalBuildContext implements BuildContext {
+
+    private static final int MAGIC = 0x4d525042;
+
+    private static final int VERSION = 1;
+
+    private final Path stateFile;
+
+    private final Path basedir;
+
+    private final Set<Path> changed;
+
+    private final Log log;
+
+    private final Map<Path, Stamp> previous = new HashMap<>();
+
+    private final Map<Path, Stamp> current = new ConcurrentHashMap<>();
+
+    private final Set<Path> deleted = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Object> values = Collections.synchronizedMap(new HashMap<>());
+
+    private record Stamp(long size, long lastModified) {}
+
+    /**
+     * @param stateFile the file keeping the state between builds
+     * @param basedir the directory the relative paths given to {@link #hasDelta(String)} are resolved against
+     * @param changed the files known to have changed whatever their stamp
+     * @param log the mojo log, receiving the messages reported to this context
+     * @throws IOException if the state cannot be read
+     */
+    IncrementalBuildContext(Path stateFile, Path basedir, Set<Path> changed, Log log) throws IOException {
+        this.stateFile = stateFile;
+        this.basedir = basedir;
+        this.changed = new HashSet<>();
+        for (Path file : changed) {
+            this.changed.add(file.toAbsolutePath().normalize());
+        }
+        this.log = log;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile)))) {
+            if (in.readInt() == MAGIC && in.readInt() == VERSION) {
+                for (int count = in.readInt(); count > 0; count--) {
+                    previous.put(Paths.get(in.readUTF()), new Stamp(in.readLong(), in.readLong()));
+                }
+                for (int count = in.readInt(); count > 0; count--) {
+                    values.put(in.readUTF(), in.readUTF());
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // first build
+        }
+    }
+
+    /**
+     * Stores the stamps of the files seen by this build, and the values of type {@link String}.
+     *
+     * @throws IOException if the state cannot be written
+     */
+    void commit() throws IOException {
+        Map<Path, Stamp> stamps = new HashMap<>(previous);
+        stamps.keySet().removeAll(deleted);
+        stamps.putAll(current);
+        Files.createDirectories(stateFile.getParent());
+        Path temp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(stamps.size());
+            for (Map.Entry<Path, Stamp> stamp : stamps.entrySet()) {
+                out.writeUTF(stamp.getKey().toString());
+                out.writeLong(stamp.getValue().size());
+                out.writeLong(stamp.getValue().lastModified());
+            }
+            List<Map.Entry<String, Object>> strings = new ArrayList<>();
+            synchronized (values) {
+                for (Map.Entry<String, Object> value : values.entrySet()) {
+                    if (value.getValue() instanceof String) {
+                        strings.add(value);
+                    }
+                }
+            }
+            out.writeInt(strings.size());
+            for (Map.Entry<String, Object> value : strings) {
+                out.writeUTF(value.getKey());
+                out.writeUTF((String) value.getValue());
+            }
+        }
+        Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** {@inheritDoc} */
+    public boolean hasDelta(String relpath) {
+        return hasDelta(basedir.resolve(relpath));
+    }
+
+    /** {@inheritDoc} */
+    public boolean hasDelta(File file) {
+        return hasDelta(file.toPath());
+    }
+
+    /** {@inheritDoc} */
+    @SuppressWarnings("rawtypes")
+    public boolean hasDelta(List relpaths) {
+        if (relpaths != null) {
+            for (Object relpath : relpaths) {
+                if (hasDelta(String.valueOf(relpath))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean hasDelta(Path path) {
+        Path file = path.toAbsolutePath().normalize();
+        if (!Files.isDirectory(file)) {
+            return observe(file);
+        }
+        boolean delta = false;
+        Set<Path> present = new HashSet<>();
+        try (Stream<Path> tree = Files.walk(file)) {
+            for (Path child : (Iterable<Path>) tree.filter(Files::isRegularFile)::iterator) {
+                present.add(child);
+                delta |= observe(child);
+            }
+        } catch (IOException e) {
+            return true;
+        }
+        for (Path known : previous.keySet()) {
+            if (known.startsWith(file) && !present.contains(known)) {
+                deleted.add(known);
+                delta = true;
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Records the current stamp of a file.
+     *
+     * @return whether the file has a delta
+     */
+    private boolean observe(Path file) {
+        Stamp stamp;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            stamp = new Stamp(attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            if (previous.containsKey(file)) {
+                deleted.add(file);
+                return true;
+            }
+            return false;
+        }
+        current.put(file, stamp);
+        return changed.contains(file) || !stamp.equals(previous.get(file));
+    }
+
+    /** {@inheritDoc} */
+    public void refresh(File file) {
+        // nothing caches the file system
+    }
+
+    /** {@inheritDoc} */
+    public OutputStream newFileOutputStream(File file) throws IOException {
+        return Files.newOutputStream(file.toPath());
+    }
+
+    /** {@inheritDoc} */
+    public Scanner newScanner(File basedir) {
+        return newScanner(basedir, false);
+    }
+
+    /** {@inheritDoc} */
+    public Scanner newDeleteScanner(File basedir) {
+        return new DeleteScanner(basedir);
+    }
+
+    /** {@inheritDoc} */
+    public Scanner newScanner(File basedir, boolean ignoreDelta) {
+        DirectoryScanner scanner = ignoreDelta ? new ObservingScanner() : new DeltaScanner();
+        scanner.setBasedir(basedir);
+        return scanner;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isIncremental() {
+        return !previous.isEmpty();
+    }
+
+    /** {@inheritDoc} */
+    public void setValue(String key, Object value) {
+        values.put(key, value);
+    }
+
+    /** {@inheritDoc} */
+    public Object getValue(String key) {
+        return values.get(key);
+    }
+
+    /** {@inheritDoc} */
+    @Deprecated
+    public void addWarning(File file, int line, int column, String message, Throwable cause) {
+        addMessage(file, line, column, message, SEVERITY_WARNING, cause);
+    }
+
+    /** {@inheritDoc} */
+    @Deprecated
+    public void addError(File file, int line, int column, String message, Throwable cause) {
+        addMessage(file, line, column, message, SEVERITY_ERROR, cause);
+    }
+
+    /** {@inheritDoc} */
+    public void addMessage(File file, int line, int column, String message, int severity, Throwable cause) {
+        String text = file + " [" + line + ':' + column + "]: " + message;
+        if (severity == SEVERITY_ERROR) {
+            log.error(text, cause);
+        } else {
+            log.warn(text, cause);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void removeMessages(File file) {
+        // messages only go to the log
+    }
+
+    /** {@inheritDoc} */
+    public boolean isUptodate(File target, File source) {
+        return target != null
+                && source != null
+                && target.exists()
+                && source.exists()
+                && target.lastModified() >= source.lastModified()
+                && !hasDelta(source);
+    }
+
+    /**
+     * Records the stamps of all included files.
+     */
+    private class ObservingScanner extends DirectoryScanner {
+
+        /** {@inheritDoc} */
+        public void scan() {
+            super.scan();
+            for (String name : super.getIncludedFiles()) {
+                observe(getBasedir().toPath().resolve(name).toAbsolutePath().normalize());
+            }
+        }
+    }
+
+    /**
+     * Only includes the files with a delta.
+     */
+    private class DeltaScanner extends DirectoryScanner {
+
+        private String[] includedFiles = new String[0];
+
+        /** {@inheritDoc} */
+        public void scan() {
+            super.scan();
+            List<String> delta = new ArrayList<>();
+            for (String name : super.getIncludedFiles()) {
+                if (observe(getBasedir().toPath().resolve(name).toAbsolutePath().normalize())) {
+                    delta.add(name);
+                }
+            }
+            includedFiles = delta.toArray(new String[0]);
+        }
+
+        /** {@inheritDoc} */
+        public String[] getIncludedFiles() {
+            return includedFiles;
+        }
+    }
+
+    /**
+     * Includes the files the previous build saw that no longer exist.
+     */
+    private class DeleteScanner extends DirectoryScanner {
+
+        private String[] includedFiles = new String[0];
+
+        DeleteScanner(File basedir) {
+            setBasedir(basedir);
+        }
+
+        /** {@inheritDoc} */
+        public void scan() {
+            setupDefaultFilters();
+            setupMatchPatterns();
+            Path directory = getBasedir().toPath().toAbsolutePath().normalize();
+            List<String> names = new ArrayList<>();
+            for (Path known : previous.keySet()) {
+                if (known.startsWith(directory) && Files.notExists(known)) {
+                    String name = directory.relativize(known).toString();
+                    if (isIncluded(name) && !isExcluded(name)) {
+                        deleted.add(known);
+                        names.add(name);
+                    }
+                }
+            }
+            Collections.sort(names);
+            includedFiles = names.toArray(new String[0]);
+        }
+
+        /** {@inheritDoc} */
+        public String[] getIncludedFiles() {
+            return includedFiles;
+        }
+
+        /** {@inheritDoc} */
+        public String[] getIncludedDirectories() {
+            return new String[0];
+        }
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The state one resources execution persists between builds: every source it processed with the stamp it had and the
+ * target it was written to, and, for filtered sources, a reverse index from each expression key to the sources
+ * referencing it, next to a digest of the value the key had.
+ * <p>
+ * When a filter value changes, {@link #changedKeys(FilterValues)} and {@link #referencing(Collection)} give the few
+ * sources to filter again without reading any of the others.
+ *
+ * @since 4.0.0-beta-2
+ */
+final class IncrementalManifest {
+
+    private static final int MAGIC = 0x4d52504d;
+
+    private static final int VERSION = 3;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * A processed source.
+     *
+     * @param source the source file
+     * @param target the file it was copied or filtered to
+     * @param size the size of the source when it was processed
+     * @param lastModified the modification time of the source when it was processed, in milliseconds
+     * @param hash the digest of the source content when it was processed
+     * @param filtered whether the source was filtered rather than copied
+     * @param keys the expression keys the source references, empty unless filtered
+     */
+    record Entry(
+            Path source, Path target, long size, long lastModified, String hash, boolean filtered, Set<String> keys) {
+
+        boolean isStamp(long size, long lastModified) {
+            return this.size == size && this.lastModified == lastModified;
+        }
+
+        /**
+         * @param size the current size of the source
+         * @param lastModified the current modification time of the source
+         * @return this entry for a source that was only touched, its content being the same
+         */
+        Entry withStamp(long size, long lastModified) {
+            return new Entry(source, target, size, lastModified, hash, filtered, keys);
+        }
+    }
+
+    private final String configuration;
+
+    private final Map<Path, Entry> entries = new LinkedHashMap<>();
+
+    private final Map<String, Set<Path>> index = new LinkedHashMap<>();
+
+    private final Map<String, String> values = new HashMap<>();
+
+    /**
+     * @param configuration the digest of the execution configuration this manifest is valid for
+     */
+    IncrementalManifest(String configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * @param file the manifest file
+     * @return the stored manifest, or an empty one if there is none or it was written by another version
+     * @throws IOException if the manifest cannot be read
+     */
+    static IncrementalManifest load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return new IncrementalManifest("");
+            }
+            String configuration = readString(in);
+            IncrementalManifest manifest = new IncrementalManifest(configuration);
+            int count = in.readInt();
+            Path[] sources = new Path[count];
+            Path[] targets = new Path[count];
+            long[] sizes = new long[count];
+            long[] lastModified = new long[count];
+            String[] hashes = new String[count];
+            boolean[] filtered = new boolean[count];
+            List<Set<String>> keys = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                sources[i] = Paths.get(readString(in));
+                targets[i] = Paths.get(readString(in));
+                sizes[i] = in.readLong();
+                lastModified[i] = in.readLong();
+                hashes[i] = readString(in);
+                filtered[i] = in.readBoolean();
+                keys.add(new LinkedHashSet<>());
+            }
+            int keyCount = in.readInt();
+            for (int i = 0; i < keyCount; i++) {
+                String key = readString(in);
+                manifest.values.put(key, readString(in));
+                int references = in.readInt();
+                for (int j = 0; j < references; j++) {
+                    keys.get(in.readInt()).add(key);
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                manifest.put(new Entry(
+                        sources[i], targets[i], sizes[i], lastModified[i], hashes[i], filtered[i], keys.get(i)));
+            }
+            return manifest;
+        } catch (NoSuchFileException e) {
+            return new IncrementalManifest("");
+        }
+    }
+
+    /**
+     * Writes this manifest, replacing the previous one only once it has been written completely.
+     *
+     * @param file the manifest file
+     * @throws IOException if the manifest cannot be written
+     */
+    void store(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<Path, Integer> positions = new HashMap<>();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, configuration);
+            out.writeInt(entries.size());
+            for (Entry entry : entries.values()) {
+                positions.put(entry.source(), positions.size());
+                writeString(out, entry.source().toString());
+                writeString(out, entry.target().toString());
+                out.writeLong(entry.size());
+                out.writeLong(entry.lastModified());
+                writeString(out, entry.hash());
+                out.writeBoolean(entry.filtered());
+            }
+            out.writeInt(index.size());
+            for (Map.Entry<String, Set<Path>> key : index.entrySet()) {
+                writeString(out, key.getKey());
+                writeString(out, values.getOrDefault(key.getKey(), ""));
+                out.writeInt(key.getValue().size());
+                for (Path source : key.getValue()) {
+                    out.writeInt(positions.get(source));
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes a string of any length, unlike {@link DataOutputStream#writeUTF(String)} which stops at 65535 bytes.
+     */
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the digest of the execution configuration this manifest is valid for
+     */
+    String configuration() {
+        return configuration;
+    }
+
+    /**
+     * @param source a source file
+     * @return the entry recorded for it, or {@code null}
+     */
+    Entry get(Path source) {
+        return entries.get(source);
+    }
+
+    /**
+     * @return all recorded entries, in the order they were processed
+     */
+    Collection<Entry> entries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /**
+     * Records an entry, replacing any previous one for the same source, and the current value of every key it
+     * references. Entries may be recorded from several threads.
+     *
+     * @param entry the entry to record
+     * @param values the current filter values
+     */
+    synchronized void put(Entry entry, FilterValues values) {
+        put(entry);
+        for (String key : entry.keys()) {
+            this.values.put(key, values.hash(key));
+        }
+    }
+
+    private void put(Entry entry) {
+        Entry previous = entries.put(entry.source(), entry);
+        if (previous != null) {
+            for (String key : previous.keys()) {
+                Set<Path> sources = index.get(key);
+                sources.remove(entry.source());
+                if (sources.isEmpty()) {
+                    index.remove(key);
+                    values.remove(key);
+                }
+            }
+        }
+        for (String key : entry.keys()) {
+            index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(entry.source());
+        }
+    }
+
+    /**
+     * @param values the current filter values
+     * @return the keys whose value changed since this manifest was recorded
+     */
+    Set<String> changedKeys(FilterValues values) {
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, String> value : this.values.entrySet()) {
+            if (!value.getValue().equals(values.hash(value.getKey()))) {
+                changed.add(value.getKey());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @param keys expression keys
+     * @return the sources referencing at least one of the keys
+     */
+    Set<Path> referencing(Collection<String> keys) {
+        Set<Path> sources = new HashSet<>();
+        for (String key : keys) {
+            sources.addAll(index.getOrDefault(key, Collections.emptySet()));
+        }
+        return sources;
+    }
+
+    /**
+     * @param text the text to digest
+     * @return a hexadecimal SHA-256 digest of the text
+     */
+    static String digest(CharSequence text) {
+        return digest(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param content the content to digest
+     * @return a hexadecimal SHA-256 digest of the content
+     */
+    static String digest(byte[] content) {
+        return hex(newDigest().digest(content));
+    }
+
+    /**
+     * @return a new SHA-256 message digest, the algorithm of all digests in this manifest
+     */
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param hash a computed digest
+     * @return the digest in hexadecimal
+     */
+    static String hex(byte[] hash) {
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
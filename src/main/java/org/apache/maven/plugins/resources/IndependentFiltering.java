@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import org.apache.maven.shared.filtering.MavenResourcesExecution;
+import org.apache.maven.shared.filtering.MavenResourcesFiltering;
+
+/**
+ * Marks a user filter component of {@code mavenFilteringHints} as independent of the others: it neither reads what
+ * another component writes, nor writes what another component reads or writes, such as a component generating a
+ * license file next to one generating an index.
+ * <p>
+ * The independent components listed next to each other run concurrently on a bounded pool, each of them calling
+ * {@link MavenResourcesFiltering#filterResources(MavenResourcesExecution)} from a thread of its own, with the same
+ * build context. A component without this marker waits for the ones listed before it, and the ones listed after it
+ * wait for it. When several components fail, the failure of the first one in the order of the hints is thrown, with
+ * the other failures suppressed.
+ *
+ * @since 4.0.0-beta-2
+ */
+public interface IndependentFiltering {}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.maven.api.Session;
+import org.apache.maven.api.SessionData;
+
+/**
+ * Bounds the number of resources copied or filtered at the same time by all the executions of a build, and the sum of
+ * their sizes, whatever the number of modules built in parallel.
+ * <p>
+ * The modules take turns: a module waiting for a file gets the next free slot before a module that was just served,
+ * and a file waits until the files before it were served, so that a large file is not overtaken forever by smaller
+ * ones. A file larger than the byte limit only counts for the limit itself, so that it runs alone rather than never.
+ * <p>
+ * Waiting relies on a lock rather than on monitors, which would pin the carriers of the virtual threads waiting.
+ *
+ * @since 4.0.0-beta-2
+ */
+final class IoScheduler {
+
+    /**
+     * The right to copy or filter one file, until closed.
+     */
+    final class Ticket implements AutoCloseable {
+
+        private final long bytes;
+
+        private boolean granted;
+
+        private boolean closed;
+
+        private Ticket(long bytes) {
+            this.bytes = bytes;
+        }
+
+        /** {@inheritDoc} */
+        public void close() {
+            release(this);
+        }
+    }
+
+    private final int maxOperations;
+
+    private final long maxBytes;
+
+    private int operations;
+
+    private long bytes;
+
+    /**
+     * The tickets waiting in each module, the modules in the order they are served.
+     */
+    private final Map<String, Deque<Ticket>> waiting = new LinkedHashMap<>();
+
+    private final Lock lock = new ReentrantLock();
+
+    private final Condition turn = lock.newCondition();
+
+    /**
+     * @param maxOperations the maximum number of files processed at once, no limit if zero or less
+     * @param maxBytes the maximum sum of the sizes of the files processed at once, no limit if zero or less
+     */
+    IoScheduler(int maxOperations, long maxBytes) {
+        this.maxOperations = maxOperations > 0 ? maxOperations : Integer.MAX_VALUE;
+        this.maxBytes = maxBytes > 0 ? maxBytes : Long.MAX_VALUE;
+    }
+
+    /**
+     * @param session the session sharing the scheduler between its executions
+     * @param maxOperations the maximum number of files processed at once, if the scheduler is created
+     * @param maxBytes the maximum sum of the sizes of the files processed at once, if the scheduler is created
+     * @return the scheduler of the session, created with the limits of the first execution asking for it
+     */
+    static IoScheduler of(Session session, int maxOperations, long maxBytes) {
+        return session.getData()
+                .computeIfAbsent(SessionData.key(IoScheduler.class), () -> new IoScheduler(maxOperations, maxBytes));
+    }
+
+    /**
+     * Waits for the turn of a file.
+     *
+     * @param module the identifier of the module processing the file
+     * @param size the size of the file
+     * @return the ticket to close once the file is processed
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    Ticket acquire(String module, long size) throws InterruptedIOException {
+        Ticket ticket = new Ticket(Math.min(Math.max(size, 0), maxBytes));
+        lock.lock();
+        try {
+            waiting.computeIfAbsent(module, m -> new ArrayDeque<>()).add(ticket);
+            dispatch();
+            while (!ticket.granted) {
+                turn.await();
+            }
+        } catch (InterruptedException e) {
+            if (ticket.granted) {
+                release(ticket);
+            } else {
+                Deque<Ticket> queue = waiting.get(module);
+                queue.remove(ticket);
+                if (queue.isEmpty()) {
+                    waiting.remove(module);
+                }
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to process a resource of " + module);
+        } finally {
+            lock.unlock();
+        }
+        return ticket;
+    }
+
+    private void release(Ticket ticket) {
+        lock.lock();
+        try {
+            if (ticket.closed) {
+                return;
+            }
+            ticket.closed = true;
+            operations--;
+            bytes -= ticket.bytes;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Grants the next tickets, one module after the other, as long as the next one fits.
+     */
+    private void dispatch() {
+        boolean any = false;
+        while (!waiting.isEmpty() && operations < maxOperations) {
+            String module = waiting.keySet().iterator().next();
+            Deque<Ticket> queue = waiting.get(module);
+            Ticket ticket = queue.peek();
+            if (bytes + ticket.bytes > maxBytes) {
+                break;
+            }
+            queue.poll();
+            waiting.remove(module);
+            if (!queue.isEmpty()) {
+                waiting.put(module, queue);
+            }
+            ticket.granted = true;
+            operations++;
+            bytes += ticket.bytes;
+            any = true;
+        }
+        if (any) {
+            turn.signalAll();
+        }
+    }
+}
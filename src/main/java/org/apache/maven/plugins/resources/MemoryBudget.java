@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.util.concurrent.Semaphore;
+
+import org.apache.maven.api.Session;
+import org.apache.maven.api.SessionData;
+
+/**
+ * Bounds the memory that all the executions of a build hold at once for the resources they read completely, to
+ * filter them or to pass them to the resource stages.
+ * <p>
+ * Reading a resource completely takes a share of the budget, weighted by its size, and the share is only granted if
+ * it is free right away: a resource that does not get its share, because the budget is exhausted or smaller than the
+ * share, is streamed instead, which holds a few buffers only. The budget is a semaphore counting kibibytes, so that
+ * budgets of several gibibytes fit.
+ *
+ * @since 4.0.0-beta-2
+ */
+final class MemoryBudget {
+
+    /**
+     * The bytes held in memory for each byte of a resource read completely: its content, as bytes then as characters,
+     * the filtered characters and their encoding, roughly.
+     */
+    static final int BYTES_PER_BYTE = 4;
+
+    private static final int UNIT = 1024;
+
+    /**
+     * The share of a resource in the budget, until closed.
+     */
+    final class Share implements AutoCloseable {
+
+        private final int units;
+
+        private boolean closed;
+
+        private Share(int units) {
+            this.units = units;
+        }
+
+        /** {@inheritDoc} */
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                permits.release(units);
+            }
+        }
+    }
+
+    private final int maxUnits;
+
+    private final Semaphore permits;
+
+    /**
+     * @param maxBytes the most bytes held at once
+     */
+    MemoryBudget(long maxBytes) {
+        this.maxUnits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxBytes / UNIT));
+        this.permits = new Semaphore(maxUnits);
+    }
+
+    /**
+     * @param session the session sharing the budget between its executions
+     * @param maxBytes the most bytes held at once, if the budget is created
+     * @return the budget of the session, created with the limit of the first execution asking for it
+     */
+    static MemoryBudget of(Session session, long maxBytes) {
+        return session.getData().computeIfAbsent(SessionData.key(MemoryBudget.class), () -> new MemoryBudget(maxBytes));
+    }
+
+    /**
+     * @param size the size of the resource to read completely
+     * @return the share of the resource, or {@code null} if it is not free and the resource is to be streamed
+     */
+    Share tryAcquire(long size) {
+        long units = (Math.max(size, 0) * BYTES_PER_BYTE + UNIT - 1) / UNIT;
+        if (units > maxUnits || !permits.tryAcquire((int) units)) {
+            return null;
+        }
+        return new Share((int) units);
+    }
+
+    /**
+     * @return the bytes of the budget not granted yet
+     */
+    long available() {
+        return (long) permits.availablePermits() * UNIT;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A further directory of {@code copy-resources} receiving the outputs written to its {@code outputDirectory}, see
+ * {@link CopyResourcesMojo#getOutputDirectories()}.
+ *
+ * @since 4.0.0-beta-2
+ */
+public class OutputDirectory {
+
+    /**
+     * The directory receiving the outputs.
+     */
+    private Path directory;
+
+    /**
+     * The path below {@link #directory} the outputs are placed in, instead of directly in it.
+     */
+    private String targetPath;
+
+    /**
+     * Whether to hard link the outputs rather than write them again, when the file system allows it.
+     */
+    private boolean link;
+
+    /**
+     * @return {@link #directory}
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @param directory {@link #directory}
+     */
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return {@link #targetPath}
+     */
+    public String getTargetPath() {
+        return targetPath;
+    }
+
+    /**
+     * @param targetPath {@link #targetPath}
+     */
+    public void setTargetPath(String targetPath) {
+        this.targetPath = targetPath;
+    }
+
+    /**
+     * @return {@link #link}
+     */
+    public boolean isLink() {
+        return link;
+    }
+
+    /**
+     * @param link {@link #link}
+     */
+    public void setLink(boolean link) {
+        this.link = link;
+    }
+
+    /**
+     * @param outputDirectory the output directory the target was written below
+     * @param target an output
+     * @return the copy of the output in this directory, or {@code null} if the output is not below the output directory
+     */
+    Path resolve(Path outputDirectory, Path target) {
+        if (!target.startsWith(outputDirectory)) {
+            return null;
+        }
+        Path base = targetPath == null || targetPath.isEmpty() ? directory : directory.resolve(targetPath);
+        return base.resolve(outputDirectory.relativize(target).toString());
+    }
+
+    /**
+     * Hard links the copy of an output to it, unless it already is.
+     *
+     * @param target the output
+     * @param copy its copy in this directory
+     * @return whether the copy is now a link to the output, {@code false} if the file system does not allow it
+     */
+    static boolean link(Path target, Path copy) {
+        try {
+            if (Files.exists(copy) && Files.isSameFile(copy, target)) {
+                return true;
+            }
+            Files.deleteIfExists(copy);
+            Files.createLink(copy, target);
+            return true;
+        } catch (UnsupportedOperationException | IOException e) {
+            return false;
+        }
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return directory + (targetPath == null ? "" : "|" + targetPath) + (link ? "|link" : "");
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * What changed in the resources and their outputs since the previous build of an execution, as given to the user
+ * filter components implementing {@link ChangeAwareFiltering}.
+ * <p>
+ * Only incremental builds know what changed: otherwise, {@link #isFullBuild()} is {@code true}, all the sets are empty,
+ * and a component must process everything. A resource that was only touched, or whose output is still what it was,
+ * is not reported.
+ *
+ * @since 4.0.0-beta-2
+ */
+public final class ResourceChanges {
+
+    private final boolean fullBuild;
+
+    private final Set<Path> addedSources = new ConcurrentSkipListSet<>();
+
+    private final Set<Path> modifiedSources = new ConcurrentSkipListSet<>();
+
+    private final Set<Path> deletedSources = new ConcurrentSkipListSet<>();
+
+    private final Set<Path> addedOutputs = new ConcurrentSkipListSet<>();
+
+    private final Set<Path> modifiedOutputs = new ConcurrentSkipListSet<>();
+
+    private final Set<Path> deletedOutputs = new ConcurrentSkipListSet<>();
+
+    private volatile boolean filterValuesChanged;
+
+    ResourceChanges(boolean fullBuild) {
+        this.fullBuild = fullBuild;
+    }
+
+    /**
+     * @return whether nothing is known about the changes, so that everything must be processed
+     */
+    public boolean isFullBuild() {
+        return fullBuild;
+    }
+
+    /**
+     * @return the resources the previous build did not process
+     */
+    public Set<Path> getAddedSources() {
+        return Collections.unmodifiableSet(addedSources);
+    }
+
+    /**
+     * @return the resources whose content changed
+     */
+    public Set<Path> getModifiedSources() {
+        return Collections.unmodifiableSet(modifiedSources);
+    }
+
+    /**
+     * @return the resources the previous build processed and this one did not, because they were deleted, renamed or
+     *         excluded
+     */
+    public Set<Path> getDeletedSources() {
+        return Collections.unmodifiableSet(deletedSources);
+    }
+
+    /**
+     * @return the outputs that did not exist before this build
+     */
+    public Set<Path> getAddedOutputs() {
+        return Collections.unmodifiableSet(addedOutputs);
+    }
+
+    /**
+     * @return the outputs whose content changed
+     */
+    public Set<Path> getModifiedOutputs() {
+        return Collections.unmodifiableSet(modifiedOutputs);
+    }
+
+    /**
+     * @return the outputs deleted as stale
+     */
+    public Set<Path> getDeletedOutputs() {
+        return Collections.unmodifiableSet(deletedOutputs);
+    }
+
+    /**
+     * @return whether the value of an expression referenced by a filtered resource changed
+     */
+    public boolean isFilterValuesChanged() {
+        return filterValuesChanged;
+    }
+
+    void setFilterValuesChanged(boolean filterValuesChanged) {
+        this.filterValuesChanged = filterValuesChanged;
+    }
+
+    /**
+     * Records a resource just copied or filtered.
+     *
+     * @param source the resource
+     * @param previous what the previous build recorded for it, {@code null} if it did not process it
+     * @param hash the digest of its content
+     * @param target its output
+     * @param existed whether the output existed before
+     * @param written whether the output was written
+     */
+    void processed(
+            Path source,
+            IncrementalManifest.Entry previous,
+            String hash,
+            Path target,
+            boolean existed,
+            boolean written) {
+        if (previous == null) {
+            addedSources.add(source);
+        } else if (!previous.hash().equals(hash)) {
+            modifiedSources.add(source);
+        }
+        if (written) {
+            (existed ? modifiedOutputs : addedOutputs).add(target);
+        }
+    }
+
+    /**
+     * Records a resource the previous build processed and this one did not.
+     *
+     * @param source the resource
+     */
+    void deleted(Path source) {
+        deletedSources.add(source);
+    }
+
+    /**
+     * Records an output deleted as stale.
+     *
+     * @param target the output
+     */
+    void deletedOutput(Path target) {
+        deletedOutputs.add(target);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.nio.file.Path;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Java Flight Recorder events of the resources goals. They are all disabled by default, and cost next to nothing
+ * then; a recording enables them with a setting like {@code org.apache.maven.plugins.resources.File#enabled=true}, or
+ * all at once with a custom {@code .jfc} file.
+ * <p>
+ * The fields of an event are only filled in once the recording is known to keep it. The {@link Scan} and {@link File}
+ * events are only emitted by the executions processed incrementally: maven-filtering scans and copies the resources of
+ * the others on its own, without telling about each of them.
+ *
+ * @since 4.0.0-beta-2
+ */
+final class ResourceEvents {
+
+    private ResourceEvents() {
+        // only holds the event types
+    }
+
+    /**
+     * One execution of a resources goal.
+     */
+    @Name("org.apache.maven.plugins.resources.Execution")
+    @Label("Resources Execution")
+    @Category({"Maven", "Resources"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Execution extends Event {
+
+        @Label("Project")
+        String project;
+
+        @Label("Execution")
+        String execution;
+
+        @Label("Output Directory")
+        String outputDirectory;
+
+        @Label("Incremental")
+        boolean incremental;
+
+        void report(String project, String execution, Path outputDirectory, boolean incremental) {
+            if (shouldCommit()) {
+                this.project = project;
+                this.execution = execution;
+                this.outputDirectory = String.valueOf(outputDirectory);
+                this.incremental = incremental;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * The scan of one resource directory.
+     */
+    @Name("org.apache.maven.plugins.resources.Scan")
+    @Label("Resource Directory Scan")
+    @Category({"Maven", "Resources"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Scan extends Event {
+
+        @Label("Directory")
+        String directory;
+
+        @Label("Included Files")
+        int included;
+
+        @Label("Excluded Files")
+        int excluded;
+
+        void report(Path directory, int included, int excluded) {
+            if (shouldCommit()) {
+                this.directory = directory.toString();
+                this.included = included;
+                this.excluded = excluded;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * The copy or filtering of one resource.
+     */
+    @Name("org.apache.maven.plugins.resources.File")
+    @Label("Resource Copy or Filtering")
+    @Category({"Maven", "Resources"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class File extends Event {
+
+        @Label("Source")
+        String source;
+
+        @Label("Target")
+        String target;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+
+        @Label("Filtered")
+        boolean filtered;
+
+        @Label("From Template")
+        @Description("Whether the output was rendered from the compiled template of an unchanged source")
+        boolean template;
+
+        void report(Path source, Path target, long size, boolean filtered, boolean template) {
+            if (shouldCommit()) {
+                this.source = source.toString();
+                this.target = target.toString();
+                this.size = size;
+                this.filtered = filtered;
+                this.template = template;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * The loading of the filter files and the setup of the filter wrappers.
+     */
+    @Name("org.apache.maven.plugins.resources.FilterSetup")
+    @Label("Filter Setup")
+    @Category({"Maven", "Resources"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class FilterSetup extends Event {
+
+        @Label("Filter Files")
+        String filters;
+
+        void report(Object filters) {
+            if (shouldCommit()) {
+                this.filters = String.valueOf(filters);
+                commit();
+            }
+        }
+    }
+
+    /**
+     * One run of a user filter component of {@code mavenFilteringHints}.
+     */
+    @Name("org.apache.maven.plugins.resources.UserFilter")
+    @Label("User Filter Component")
+    @Category({"Maven", "Resources"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class UserFilter extends Event {
+
+        @Label("Hint")
+        String hint;
+
+        @Label("Component")
+        String component;
+
+        void report(String hint, Object component) {
+            if (shouldCommit()) {
+                this.hint = hint;
+                this.component = component.getClass().getName();
+                commit();
+            }
+        }
+    }
+}
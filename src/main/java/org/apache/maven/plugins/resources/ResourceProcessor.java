@@ -0,0 +1,913 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.api.plugin.Log;
+import org.apache.maven.shared.filtering.MavenFilteringException;
+import org.apache.maven.shared.filtering.MavenResourcesExecution;
+import org.apache.maven.shared.filtering.MavenResourcesFiltering;
+import org.apache.maven.shared.filtering.Resource;
+import org.codehaus.plexus.util.DirectoryScanner;
+
+/**
+ * Copies and filters the resources of a {@link MavenResourcesExecution} one file at a time, skipping the sources the
+ * {@link IncrementalManifest} of the previous build proves to be up to date.
+ * <p>
+ * A source is processed again when its content changed, when its target is missing, or, for a filtered source, when
+ * the value of one of the expressions it references changed. The content of a source is only read when its size or
+ * modification time changed, and a source that was merely touched is not written again. Scanning, destination names
+ * and filtering otherwise follow {@link MavenResourcesFiltering#filterResources(MavenResourcesExecution)}, using the
+ * filter wrappers already set on the execution.
+ * <p>
+ * The outputs the previous build recorded for sources this build no longer processes, because they were deleted,
+ * renamed, excluded or their resource directory was removed, are deleted, even when the configuration changed in the
+ * meantime. This only costs one deletion per such output.
+ * <p>
+ * A filtered source that did not change itself but references a changed value is rendered from its
+ * {@link CompiledTemplate} when the {@link TemplateCache} holds one, instead of being read and scanned again.
+ * <p>
+ * The {@link ResourceStage}s of the user filter components transform the outputs of the resources they accept after
+ * the filtering, before the outputs are written. The outputs are then written again, or hard linked, into the further
+ * {@link OutputDirectory output directories}, without reading or filtering the resources again.
+ * <p>
+ * Given the paths a watcher saw changing since the previous build, the other sources known to the previous build are
+ * kept as they are, without even reading their attributes.
+ * <p>
+ * The resource directories are walked by the processor itself, unless it is given the {@link SourceTrees} shared with
+ * the other executions of the phase. Each resource to copy or filter waits for its turn in the {@link IoScheduler} of
+ * the build, if any, and the files of a resource directory are processed on the {@link Workers} threads, if any,
+ * the largest ones first.
+ * <p>
+ * The sources to filter or to pass to the stages are read completely, unless the {@link MemoryBudget} of the build
+ * cannot hold them right now: they are then streamed from the source to the target, at the cost of their template.
+ * Sources larger than {@link #MAX_BUFFERED} bytes are always streamed, whether there is a budget or not.
+ *
+ * @since 4.0.0-beta-2
+ */
+class ResourceProcessor {
+
+    private static final String[] DEFAULT_INCLUDES = {"**/**"};
+
+    /**
+     * The size above which a source is streamed whatever the memory budget: the arrays and strings holding the content
+     * of a larger source read completely could not be allocated.
+     */
+    static final long MAX_BUFFERED = Integer.MAX_VALUE / MemoryBudget.BYTES_PER_BYTE;
+
+    /**
+     * What filtering the sources of an execution needs.
+     *
+     * @param execution the execution to process
+     * @param values the filter values of the execution
+     * @param delimiters the delimiters denoting an expression
+     */
+    private record Context(
+            MavenResourcesExecution execution, FilterValues values, List<Expressions.Delimiter> delimiters) {}
+
+    /**
+     * What processing the sources of one resource needs.
+     *
+     * @param context what filtering the sources needs
+     * @param resource the resource
+     * @param affected the sources referencing a filter value that changed
+     * @param next the manifest of this build, receiving the processed sources
+     */
+    private record ResourceContext(
+            Context context, Resource resource, Set<Path> affected, IncrementalManifest next) {}
+
+    private final Log log;
+
+    private final MavenResourcesFiltering mavenResourcesFiltering;
+
+    private final String configuration;
+
+    private final IncrementalManifest previous;
+
+    private final IncrementalManifest reusable;
+
+    private final TemplateCache templates;
+
+    private final ExecutionMetrics metrics;
+
+    private final Set<Path> processed = ConcurrentHashMap.newKeySet();
+
+    private final ResourceChanges changes = new ResourceChanges(false);
+
+    private List<ResourceStage> stages = Collections.emptyList();
+
+    private List<OutputDirectory> mirrors = Collections.emptyList();
+
+    private SourceTrees trees;
+
+    /**
+     * The only paths that changed since the previous build, {@code null} if any may have.
+     */
+    private Set<Path> changed;
+
+    private IoScheduler scheduler;
+
+    private Workers workers;
+
+    private MemoryBudget budget;
+
+    private BufferPool buffers = new BufferPool(1);
+
+    private String module;
+
+    /**
+     * @param log the mojo log
+     * @param mavenResourcesFiltering decides which file extensions are filtered
+     * @param configuration the digest of the current execution configuration
+     * @param previous the manifest of the previous build, empty if there was none
+     * @param templates the compiled templates of the filtered sources
+     * @param metrics counts the files and bytes processed, and times scanning and filtering
+     */
+    ResourceProcessor(
+            Log log,
+            MavenResourcesFiltering mavenResourcesFiltering,
+            String configuration,
+            IncrementalManifest previous,
+            TemplateCache templates,
+            ExecutionMetrics metrics) {
+        this.log = log;
+        this.mavenResourcesFiltering = mavenResourcesFiltering;
+        this.configuration = configuration;
+        this.previous = previous;
+        this.reusable =
+                configuration.equals(previous.configuration()) ? previous : new IncrementalManifest(configuration);
+        this.templates = templates;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param stages the stages transforming the outputs, in their order
+     */
+    void setStages(List<ResourceStage> stages) {
+        this.stages = stages;
+    }
+
+    /**
+     * @param mirrors the further directories receiving the outputs
+     */
+    void setMirrors(List<OutputDirectory> mirrors) {
+        this.mirrors = mirrors;
+    }
+
+    /**
+     * @param trees the trees of the resource directories shared with the other executions of the phase
+     */
+    void setTrees(SourceTrees trees) {
+        this.trees = trees;
+    }
+
+    /**
+     * @param changed the only files and directories that changed since the previous build, all the sources below such a
+     *            directory included, {@code null} if any may have
+     */
+    void setChanged(Set<Path> changed) {
+        if (changed == null) {
+            this.changed = null;
+        } else {
+            this.changed = new HashSet<>();
+            for (Path path : changed) {
+                this.changed.add(path.toAbsolutePath().normalize());
+            }
+        }
+    }
+
+    /**
+     * @param scheduler the scheduler sharing the file operations between the modules of the build
+     * @param module the identifier of the module of the execution
+     */
+    void setScheduler(IoScheduler scheduler, String module) {
+        this.scheduler = scheduler;
+        this.module = module;
+    }
+
+    /**
+     * @param workers the threads processing the files, {@code null} to process them on the calling thread
+     */
+    void setWorkers(Workers workers) {
+        this.workers = workers;
+        this.buffers = new BufferPool(workers != null ? workers.max() : 1);
+    }
+
+    /**
+     * @param budget the memory the sources read completely may take, {@code null} for no limit
+     */
+    void setBudget(MemoryBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @param execution the execution to process
+     * @return the manifest describing the outputs after this build
+     * @throws MavenFilteringException if a resource cannot be copied or filtered
+     */
+    IncrementalManifest process(MavenResourcesExecution execution) throws MavenFilteringException {
+        List<Expressions.Delimiter> delimiters = Expressions.delimiters(execution.getDelimiters());
+        FilterValues values = new FilterValues(execution.getFilterWrappers(), delimiters.get(0));
+        IncrementalManifest next = new IncrementalManifest(configuration);
+        try {
+            Set<String> changedKeys = reusable.changedKeys(values);
+            changes.setFilterValuesChanged(!changedKeys.isEmpty());
+            Set<Path> affected = reusable.referencing(changedKeys);
+            Context context = new Context(execution, values, delimiters);
+            for (Resource resource : execution.getResources()) {
+                process(new ResourceContext(context, resource, affected, next));
+            }
+            deleteStaleOutputs(execution, next);
+            written(execution, values, null);
+        } catch (IOException e) {
+            throw new MavenFilteringException(e.getMessage(), e);
+        } catch (UncheckedIOException e) {
+            throw new MavenFilteringException(e.getCause().getMessage(), e.getCause());
+        }
+        return next;
+    }
+
+    /**
+     * @return the sources copied or filtered by {@link #process(MavenResourcesExecution)}
+     */
+    Set<Path> processed() {
+        return processed;
+    }
+
+    /**
+     * @return what {@link #process(MavenResourcesExecution)} changed
+     */
+    ResourceChanges changes() {
+        return changes;
+    }
+
+    /**
+     * Finds out whether processing the execution would change any output, without writing anything. Sources whose
+     * stamp changed are read to tell a changed content from a touched file; nothing else is read but the filter files.
+     *
+     * @param execution the execution to check
+     * @return the first change found, or {@code null} if all outputs are up to date
+     * @throws MavenFilteringException if a resource or filter cannot be read
+     */
+    String findChange(MavenResourcesExecution execution) throws MavenFilteringException {
+        if (reusable != previous) {
+            return previous.entries().isEmpty()
+                    ? "there is no previous incremental build"
+                    : "the configuration changed since the previous build";
+        }
+        if (execution.isOverwrite()) {
+            return "overwrite is enabled";
+        }
+        List<Expressions.Delimiter> delimiters = Expressions.delimiters(execution.getDelimiters());
+        FilterValues values = new FilterValues(execution.getFilterWrappers(), delimiters.get(0));
+        try {
+            Set<String> changedKeys = reusable.changedKeys(values);
+            if (!changedKeys.isEmpty()) {
+                return "the value of " + changedKeys.iterator().next() + " changed";
+            }
+            Set<Path> sources = new HashSet<>();
+            for (Resource resource : execution.getResources()) {
+                Path directory = execution.getMavenProject().getBasedir().resolve(resource.getDirectory());
+                if (!Files.isDirectory(directory)) {
+                    continue;
+                }
+                DirectoryScanner scanner = scan(directory, resource, execution.isAddDefaultExcludes());
+                if (execution.isIncludeEmptyDirs()) {
+                    for (String name : scanner.getIncludedDirectories()) {
+                        Path target = destination(execution, values, resource.getTargetPath(), name);
+                        if (!Files.isDirectory(target)) {
+                            return target + " is missing";
+                        }
+                    }
+                }
+                for (String name : scanner.getIncludedFiles()) {
+                    Path source = directory.resolve(name);
+                    String change = findChange(execution, resource, values, source, name);
+                    if (change != null) {
+                        return change;
+                    }
+                    sources.add(source);
+                }
+            }
+            for (IncrementalManifest.Entry entry : previous.entries()) {
+                if (!sources.contains(entry.source()) && Files.exists(entry.target())) {
+                    return entry.target() + " is stale";
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new MavenFilteringException(e.getMessage(), e);
+        } catch (UncheckedIOException e) {
+            throw new MavenFilteringException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private String findChange(
+            MavenResourcesExecution execution, Resource resource, FilterValues values, Path source, String name)
+            throws IOException {
+        IncrementalManifest.Entry entry = reusable.get(source);
+        if (entry == null) {
+            return source + " is new";
+        }
+        Path target = destination(execution, values, resource.getTargetPath(), name);
+        boolean filtered = resource.isFiltering()
+                && mavenResourcesFiltering.filteredFileExtension(
+                        source.getFileName().toString(), execution.getNonFilteredFileExtensions());
+        if (entry.filtered() != filtered || !entry.target().equals(target)) {
+            return source + " is now processed differently";
+        }
+        if (!Files.exists(target)) {
+            return target + " is missing";
+        }
+        if (!mirrored(execution, target)) {
+            return "a copy of " + target + " is missing";
+        }
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        if (!entry.isStamp(attributes.size(), attributes.lastModifiedTime().toMillis())) {
+            try (BufferPool.Buffers buffers = this.buffers.take()) {
+                if (!entry.hash().equals(buffers.digest(source))) {
+                    return source + " changed";
+                }
+            }
+        }
+        return null;
+    }
+
+    private void process(ResourceContext resourceContext) throws IOException {
+        MavenResourcesExecution execution = resourceContext.context().execution();
+        Resource resource = resourceContext.resource();
+        Path basedir = execution.getMavenProject().getBasedir();
+        Path directory = basedir.resolve(resource.getDirectory());
+        if (!Files.isDirectory(directory)) {
+            log.info("skip non existing resourceDirectory " + directory);
+            return;
+        }
+
+        ResourceEvents.Scan event = new ResourceEvents.Scan();
+        event.begin();
+        DirectoryScanner scanner;
+        try (ExecutionMetrics.Timer timer = metrics.time("scan")) {
+            scanner = scan(directory, resource, execution.isAddDefaultExcludes());
+        }
+        String[] names = scanner.getIncludedFiles();
+        int excluded = scanner.getExcludedFiles().length;
+        event.report(directory, names.length, excluded);
+        metrics.add(ExecutionMetrics.Counter.SCANNED, names.length);
+        metrics.add(ExecutionMetrics.Counter.EXCLUDED, excluded);
+
+        int processed;
+        try (ExecutionMetrics.Timer timer = metrics.time("filtering")) {
+            processed = process(resourceContext, scanner, names, timer);
+        }
+        metrics.add(ExecutionMetrics.Counter.UP_TO_DATE, names.length - processed);
+        written(execution, resourceContext.context().values(), resource.getTargetPath());
+
+        log.info("Copying " + processed + " resource" + (processed != 1 ? "s" : "") + " from "
+                + relativize(basedir, directory) + " to " + relativize(basedir, execution.getOutputDirectory())
+                + " (" + (names.length - processed) + " up to date)");
+    }
+
+    /**
+     * @param timer the timer of the phase, which the CPU time of the worker threads is added to
+     * @return the number of sources copied or filtered
+     */
+    private int process(
+            ResourceContext resourceContext, DirectoryScanner scanner, String[] names, ExecutionMetrics.Timer timer)
+            throws IOException {
+        MavenResourcesExecution execution = resourceContext.context().execution();
+        FilterValues values = resourceContext.context().values();
+        Resource resource = resourceContext.resource();
+        Path directory = scanner.getBasedir().toPath();
+        if (execution.isIncludeEmptyDirs()) {
+            for (String name : scanner.getIncludedDirectories()) {
+                Files.createDirectories(destination(execution, values, resource.getTargetPath(), name));
+            }
+        }
+
+        AtomicInteger processed = new AtomicInteger();
+        List<Workers.Task> tasks = new ArrayList<>(names.length);
+        for (String name : names) {
+            Path source = directory.resolve(name);
+            tasks.add(timer.measure(() -> {
+                long size = processFile(resourceContext, source, name);
+                if (size < 0) {
+                    return 0;
+                }
+                processed.incrementAndGet();
+                return size;
+            }));
+        }
+        if (workers != null) {
+            workers.run(workers.plan(tasks, costs(directory, names)));
+        } else {
+            for (Workers.Task task : tasks) {
+                task.run();
+            }
+        }
+        return processed.get();
+    }
+
+    /**
+     * @return the size of each source as the previous build recorded it, or as it is now for the sources it did not
+     *         know
+     */
+    private long[] costs(Path directory, String[] names) throws IOException {
+        long[] costs = new long[names.length];
+        for (int i = 0; i < names.length; i++) {
+            Path source = directory.resolve(names[i]);
+            IncrementalManifest.Entry entry = previous.get(source);
+            costs[i] = entry != null ? entry.size() : Files.size(source);
+        }
+        return costs;
+    }
+
+    /**
+     * @return whether the source, or a directory above it, is one of the {@link #changed} paths
+     */
+    private boolean isChanged(Path source) {
+        for (Path path = source.toAbsolutePath().normalize(); path != null; path = path.getParent()) {
+            if (changed.contains(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the size of the source if it was copied or filtered, {@code -1} if its output is up to date
+     */
+    private long processFile(ResourceContext resourceContext, Path source, String name) throws IOException {
+        Context context = resourceContext.context();
+        MavenResourcesExecution execution = context.execution();
+        FilterValues values = context.values();
+        Resource resource = resourceContext.resource();
+        Set<Path> affected = resourceContext.affected();
+        IncrementalManifest next = resourceContext.next();
+        Path target = destination(execution, values, resource.getTargetPath(), name);
+        boolean filtered = resource.isFiltering()
+                && mavenResourcesFiltering.filteredFileExtension(
+                        source.getFileName().toString(), execution.getNonFilteredFileExtensions());
+        IncrementalManifest.Entry entry = reusable.get(source);
+        if (changed != null
+                && !execution.isOverwrite()
+                && entry != null
+                && entry.filtered() == filtered
+                && entry.target().equals(target)
+                && !affected.contains(source)
+                && !isChanged(source)) {
+            next.put(entry, values);
+            return -1;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        boolean known = !execution.isOverwrite()
+                && entry != null
+                && entry.filtered() == filtered
+                && entry.target().equals(target)
+                && Files.exists(target)
+                && mirrored(execution, target);
+        if (known && entry.isStamp(size, lastModified) && !affected.contains(source)) {
+            next.put(entry, values);
+            return -1;
+        }
+
+        List<ResourceStage> chain = stages(source, target);
+        boolean buffered = filtered || !chain.isEmpty();
+        boolean large = size > MAX_BUFFERED;
+        try (IoScheduler.Ticket ticket = acquire(size);
+                MemoryBudget.Share share = buffered && !large && budget != null ? budget.tryAcquire(size) : null;
+                BufferPool.Buffers buffers = this.buffers.take()) {
+            boolean streamed = buffered && (large || budget != null && share == null);
+            long start = System.nanoTime();
+            ResourceEvents.File event = new ResourceEvents.File();
+            event.begin();
+            IncrementalManifest.Entry before = previous.get(source);
+            boolean existed = Files.exists(target);
+            Charset charset = charset(execution, source);
+            byte[] content = null;
+            if (known) {
+                String hash;
+                if (entry.isStamp(size, lastModified)) {
+                    hash = entry.hash();
+                } else if (buffered && !streamed) {
+                    content = Files.readAllBytes(source);
+                    metrics.add(ExecutionMetrics.Counter.BYTES_READ, content.length);
+                    hash = IncrementalManifest.digest(content);
+                } else {
+                    hash = buffers.digest(source);
+                    metrics.add(ExecutionMetrics.Counter.BYTES_READ, size);
+                }
+                if (hash.equals(entry.hash())) {
+                    if (!affected.contains(source)) {
+                        // only touched, the output is still what this content gives
+                        next.put(entry.withStamp(size, lastModified), values);
+                        return -1;
+                    }
+                    CompiledTemplate template = streamed ? null : templates.load(source, hash);
+                    if (template != null) {
+                        byte[] output = transform(chain, buffers.render(template, values), source, target, buffers)
+                                .getBytes(charset);
+                        boolean written = writeIfChanged(target, output, buffers);
+                        mirror(execution, target, output, buffers);
+                        changes.processed(source, before, hash, target, existed, written);
+                        metrics.add(ExecutionMetrics.Counter.FILTERED, 1);
+                        metrics.file(source, System.nanoTime() - start, output.length);
+                        event.report(source, target, size, true, true);
+                        next.put(entry.withStamp(size, lastModified), values);
+                        this.processed.add(source);
+                        return size;
+                    }
+                }
+            }
+
+            Files.createDirectories(target.getParent());
+            String hash;
+            Set<String> keys;
+            long outputSize;
+            boolean written;
+            if (streamed) {
+                logStreaming(source, size);
+                keys = new LinkedHashSet<>();
+                hash = stream(context, filtered, chain, source, target, buffers, keys);
+                templates.remove(source);
+                mirror(execution, target, null, buffers);
+                outputSize = Files.size(target);
+                written = true;
+                metrics.add(ExecutionMetrics.Counter.BYTES_READ, size);
+                metrics.add(ExecutionMetrics.Counter.BYTES_WRITTEN, outputSize);
+                metrics.add(ExecutionMetrics.Counter.STREAMED, 1);
+                metrics.add(filtered ? ExecutionMetrics.Counter.FILTERED : ExecutionMetrics.Counter.COPIED, 1);
+            } else if (filtered) {
+                if (content == null) {
+                    content = Files.readAllBytes(source);
+                    metrics.add(ExecutionMetrics.Counter.BYTES_READ, content.length);
+                }
+                hash = IncrementalManifest.digest(content);
+                String text = new String(content, charset);
+                String result = buffers.read(values.filter(new StringReader(text)));
+                byte[] output = transform(chain, result, source, target, buffers).getBytes(charset);
+                written = writeIfChanged(target, output, buffers);
+                mirror(execution, target, output, buffers);
+                outputSize = output.length;
+                keys = Expressions.keys(text, context.delimiters(), execution.isSupportMultiLineFiltering());
+                compile(context, source, hash, text, result, buffers);
+                metrics.add(ExecutionMetrics.Counter.FILTERED, 1);
+            } else if (!chain.isEmpty()) {
+                if (content == null) {
+                    content = Files.readAllBytes(source);
+                    metrics.add(ExecutionMetrics.Counter.BYTES_READ, content.length);
+                }
+                hash = IncrementalManifest.digest(content);
+                byte[] output = transform(chain, new String(content, charset), source, target, buffers)
+                        .getBytes(charset);
+                written = writeIfChanged(target, output, buffers);
+                mirror(execution, target, output, buffers);
+                outputSize = output.length;
+                keys = Collections.emptySet();
+                metrics.add(ExecutionMetrics.Counter.COPIED, 1);
+            } else {
+                hash = buffers.copy(source, target);
+                mirror(execution, target, null, buffers);
+                keys = Collections.emptySet();
+                outputSize = size;
+                written = true;
+                metrics.add(ExecutionMetrics.Counter.BYTES_READ, size);
+                metrics.add(ExecutionMetrics.Counter.BYTES_WRITTEN, size);
+                metrics.add(ExecutionMetrics.Counter.COPIED, 1);
+            }
+            metrics.file(source, System.nanoTime() - start, outputSize);
+            event.report(source, target, size, filtered, false);
+            next.put(new IncrementalManifest.Entry(source, target, size, lastModified, hash, filtered, keys), values);
+            changes.processed(source, before, hash, target, existed, written);
+            this.processed.add(source);
+            return size;
+        }
+    }
+
+    private void logStreaming(Path source, long size) {
+        if (size > MAX_BUFFERED) {
+            log.debug("Streaming " + source + " of " + size + " bytes, too large to read completely");
+        } else {
+            log.debug("Streaming " + source + " for lack of memory, " + budget.available() + " bytes left");
+        }
+    }
+
+    /**
+     * Deletes what the previous build produced from sources this build did not process, or now writes elsewhere, unless
+     * another source produces the same output now, together with the directories this leaves empty.
+     */
+    private void deleteStaleOutputs(MavenResourcesExecution execution, IncrementalManifest next) throws IOException {
+        Set<Path> targets = new HashSet<>();
+        for (IncrementalManifest.Entry entry : next.entries()) {
+            targets.add(entry.target());
+        }
+        int deleted = 0;
+        for (IncrementalManifest.Entry entry : previous.entries()) {
+            IncrementalManifest.Entry current = next.get(entry.source());
+            if (current == null) {
+                templates.remove(entry.source());
+                changes.deleted(entry.source());
+            } else if (current.target().equals(entry.target())) {
+                continue;
+            }
+            if (!targets.contains(entry.target()) && Files.deleteIfExists(entry.target())) {
+                log.debug("Deleted stale " + entry.target() + " of " + entry.source());
+                changes.deletedOutput(entry.target());
+                deleted++;
+                if (!execution.isIncludeEmptyDirs()) {
+                    deleteEmptyParents(entry.target(), execution.getOutputDirectory());
+                }
+                for (OutputDirectory mirror : mirrors) {
+                    Path copy = mirror.resolve(execution.getOutputDirectory(), entry.target());
+                    if (copy != null && Files.deleteIfExists(copy) && !execution.isIncludeEmptyDirs()) {
+                        deleteEmptyParents(copy, mirror.getDirectory());
+                    }
+                }
+            }
+        }
+        metrics.add(ExecutionMetrics.Counter.DELETED, deleted);
+        if (deleted > 0) {
+            log.info("Deleted " + deleted + " stale resource" + (deleted != 1 ? "s" : "") + " from "
+                    + execution.getOutputDirectory());
+        }
+    }
+
+    private static void deleteEmptyParents(Path target, Path outputDirectory) throws IOException {
+        for (Path directory = target.getParent();
+                directory != null && !directory.equals(outputDirectory) && directory.startsWith(outputDirectory);
+                directory = directory.getParent()) {
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+                if (children.iterator().hasNext()) {
+                    return;
+                }
+            }
+            try {
+                Files.delete(directory);
+            } catch (DirectoryNotEmptyException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the ticket to close once the file is processed, {@code null} if there is no scheduler
+     */
+    private IoScheduler.Ticket acquire(long size) throws IOException {
+        return scheduler != null ? scheduler.acquire(module, size) : null;
+    }
+
+    /**
+     * Keeps the template of a source just filtered completely, provided rendering it gives the very same result.
+     */
+    private void compile(
+            Context context, Path source, String hash, String content, String result, BufferPool.Buffers buffers)
+            throws IOException {
+        MavenResourcesExecution execution = context.execution();
+        CompiledTemplate template = CompiledTemplate.compile(
+                content, context.delimiters(), execution.getEscapeString(), execution.isSupportMultiLineFiltering());
+        if (template != null && template.slots() > 0 && buffers.renders(template, context.values(), result)) {
+            templates.store(source, hash, template);
+        } else {
+            templates.remove(source);
+        }
+    }
+
+    /**
+     * @return the stages accepting the source, in their order
+     */
+    private List<ResourceStage> stages(Path source, Path target) {
+        if (stages.isEmpty()) {
+            return stages;
+        }
+        List<ResourceStage> chain = new ArrayList<>(stages.size());
+        for (ResourceStage stage : stages) {
+            if (stage.accepts(source, target)) {
+                chain.add(stage);
+            }
+        }
+        return chain;
+    }
+
+    /**
+     * Filters the source if requested and passes it through the chain of stages while writing the target, holding a few
+     * buffers only.
+     *
+     * @param keys receives the keys of the expressions of the source, if filtered
+     * @return the digest of the source content
+     */
+    private static String stream(
+            Context context,
+            boolean filtered,
+            List<ResourceStage> chain,
+            Path source,
+            Path target,
+            BufferPool.Buffers buffers,
+            Set<String> keys)
+            throws IOException {
+        Charset charset = charset(context.execution(), source);
+        MessageDigest digest = IncrementalManifest.newDigest();
+        ExpressionKeysReader scanner = null;
+        try (InputStream in = Files.newInputStream(source);
+                Writer out = Files.newBufferedWriter(target, charset)) {
+            Reader reader = new InputStreamReader(new DigestInputStream(in, digest), charset);
+            if (filtered) {
+                scanner = new ExpressionKeysReader(
+                        reader, context.delimiters(), context.execution().isSupportMultiLineFiltering());
+                reader = context.values().filter(scanner);
+            }
+            for (ResourceStage stage : chain) {
+                reader = stage.transform(reader, source, target);
+            }
+            buffers.transfer(reader, out);
+        }
+        if (scanner != null) {
+            keys.addAll(scanner.keys());
+        }
+        return IncrementalManifest.hex(digest.digest());
+    }
+
+    /**
+     * Streams the content through the chain of stages.
+     */
+    private static String transform(
+            List<ResourceStage> chain, String content, Path source, Path target, BufferPool.Buffers buffers)
+            throws IOException {
+        if (chain.isEmpty()) {
+            return content;
+        }
+        Reader reader = new StringReader(content);
+        for (ResourceStage stage : chain) {
+            reader = stage.transform(reader, source, target);
+        }
+        return buffers.read(reader);
+    }
+
+    /**
+     * @return whether the copies of the output in all the further output directories exist
+     */
+    private boolean mirrored(MavenResourcesExecution execution, Path target) {
+        for (OutputDirectory mirror : mirrors) {
+            Path copy = mirror.resolve(execution.getOutputDirectory(), target);
+            if (copy != null && !Files.exists(copy)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the output just written to the target into the further output directories too, or links it there.
+     *
+     * @param output the content of the target, {@code null} to copy the target itself
+     */
+    private void mirror(MavenResourcesExecution execution, Path target, byte[] output, BufferPool.Buffers buffers)
+            throws IOException {
+        for (OutputDirectory mirror : mirrors) {
+            Path copy = mirror.resolve(execution.getOutputDirectory(), target);
+            if (copy == null) {
+                continue;
+            }
+            Files.createDirectories(copy.getParent());
+            if (mirror.isLink() && OutputDirectory.link(target, copy)) {
+                continue;
+            }
+            if (output != null) {
+                writeIfChanged(copy, output, buffers);
+            } else {
+                Files.copy(target, copy, StandardCopyOption.REPLACE_EXISTING);
+                metrics.add(ExecutionMetrics.Counter.BYTES_WRITTEN, Files.size(copy));
+            }
+        }
+    }
+
+    /**
+     * @return whether the target was written
+     */
+    private boolean writeIfChanged(Path target, byte[] content, BufferPool.Buffers buffers) throws IOException {
+        if (!Files.exists(target) || !buffers.holds(target, content)) {
+            Files.write(target, content);
+            metrics.add(ExecutionMetrics.Counter.BYTES_WRITTEN, content.length);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tells the shared trees that the outputs below the target path, and their copies, may have changed.
+     */
+    private void written(MavenResourcesExecution execution, FilterValues values, String targetPath)
+            throws IOException {
+        if (trees != null) {
+            trees.written(destination(execution, values, targetPath, ""));
+            for (OutputDirectory mirror : mirrors) {
+                trees.written(mirror.getDirectory());
+            }
+        }
+    }
+
+    private DirectoryScanner scan(Path directory, Resource resource, boolean addDefaultExcludes) {
+        DirectoryScanner scanner;
+        if (trees != null) {
+            scanner = trees.newScanner(directory);
+        } else {
+            scanner = new DirectoryScanner();
+            scanner.setBasedir(directory.toFile());
+        }
+        List<String> includes = resource.getIncludes();
+        if (includes != null && !includes.isEmpty()) {
+            scanner.setIncludes(includes.toArray(new String[0]));
+        } else {
+            scanner.setIncludes(DEFAULT_INCLUDES);
+        }
+        List<String> excludes = resource.getExcludes();
+        if (excludes != null && !excludes.isEmpty()) {
+            scanner.setExcludes(excludes.toArray(new String[0]));
+        }
+        if (addDefaultExcludes) {
+            scanner.addDefaultExcludes();
+        }
+        scanner.scan();
+        return scanner;
+    }
+
+    /**
+     * Same as the destination {@link MavenResourcesFiltering} computes: the name is filtered first if
+     * {@code fileNameFiltering} is enabled, then placed under the target path, relative to the output directory unless
+     * absolute.
+     */
+    private static Path destination(
+            MavenResourcesExecution execution, FilterValues values, String targetPath, String name)
+            throws IOException {
+        String destination = name;
+        if (execution.isFilterFilenames() && !execution.getFilterWrappers().isEmpty()) {
+            destination = values.filter(destination);
+        }
+        if (targetPath != null) {
+            destination = targetPath + "/" + destination;
+        }
+        Path path = Paths.get(destination);
+        return path.isAbsolute() ? path : execution.getOutputDirectory().resolve(path);
+    }
+
+    private static Charset charset(MavenResourcesExecution execution, Path source) {
+        String encoding = execution.getEncoding();
+        if (execution.getPropertiesEncoding() != null
+                && source.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".properties")) {
+            encoding = execution.getPropertiesEncoding();
+        }
+        return encoding == null || encoding.isEmpty() ? Charset.defaultCharset() : Charset.forName(encoding);
+    }
+
+    private static Path relativize(Path basedir, Path path) {
+        try {
+            return basedir.relativize(path);
+        } catch (IllegalArgumentException e) {
+            return path;
+        }
+    }
+}
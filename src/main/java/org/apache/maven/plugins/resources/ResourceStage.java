@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+
+import org.apache.maven.shared.filtering.MavenResourcesExecution;
+import org.apache.maven.shared.filtering.MavenResourcesFiltering;
+
+/**
+ * A user filter component of {@code mavenFilteringHints} transforming the resources one file at a time, as a stream.
+ * <p>
+ * A {@link MavenResourcesFiltering} component implementing this interface too is not run after the copy of the
+ * resources by incremental builds: each resource it {@link #accepts(Path, Path) accepts} is read once, goes through
+ * the filtering of the execution, then through the stages of all such components in the order of their hints, and its
+ * output is written once. Without incremental processing, the resources are copied by maven-filtering, and the
+ * component is still run once for the whole execution through
+ * {@link MavenResourcesFiltering#filterResources(MavenResourcesExecution)}.
+ * <p>
+ * The content goes through a stage as text, in the encoding of the resource. Since incremental builds only process
+ * the resources that changed, a stage must only depend on the content and the name of the resource. Executions using
+ * several {@code threads} transform several resources at once, so a stage must then be thread-safe.
+ *
+ * @since 4.0.0-beta-2
+ */
+public interface ResourceStage {
+
+    /**
+     * @param source the resource
+     * @param target its output
+     * @return whether this stage transforms the resource
+     */
+    boolean accepts(Path source, Path target);
+
+    /**
+     * @param reader the content of the resource, as left by the filtering and the previous stages
+     * @param source the resource
+     * @param target its output
+     * @return the transformed content, closing {@code reader} once closed itself
+     * @throws IOException if the content cannot be transformed
+     */
+    Reader transform(Reader reader, Path source, Path target) throws IOException;
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Watches resource directories, including the directories created in them later, and single files such as filter
+ * files, and reports their changes in batches. A resource directory missing at first is watched from its nearest
+ * existing parent until it is created, then reported with all its content.
+ * <p>
+ * A batch ends once no event arrived for a quiet period, so that an editor saving a file in several steps, or a
+ * checkout touching many files, is one batch rather than many. It also ends once it lasted a maximum time, so that a
+ * process writing continuously does not hold back the changes forever; the further events go to the next batch.
+ *
+ * @since 4.0.0-beta-2
+ */
+final class ResourceWatcher implements Closeable {
+
+    private final WatchService service;
+
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    private final Set<Path> recursive = new HashSet<>();
+
+    private final Set<Path> files = new HashSet<>();
+
+    /**
+     * The directories to watch that do not exist yet.
+     */
+    private final Set<Path> missing = new HashSet<>();
+
+    /**
+     * @param roots the directories to watch with all their subdirectories, the missing ones once created
+     * @param files the single files to watch
+     * @throws IOException if the directories cannot be watched
+     */
+    ResourceWatcher(Collection<Path> roots, Collection<Path> files) throws IOException {
+        this.service = FileSystems.getDefault().newWatchService();
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                registerAll(root);
+            } else {
+                missing.add(root.toAbsolutePath());
+                registerParent(root.toAbsolutePath());
+            }
+        }
+        for (Path file : files) {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null && Files.isDirectory(parent)) {
+                this.files.add(file.toAbsolutePath());
+                register(parent);
+            }
+        }
+    }
+
+    /**
+     * Waits for the next batch of changes.
+     *
+     * @param quietPeriod the time without any event ending a batch, in milliseconds
+     * @param maxBatchTime the time after the first event of a batch ending it anyway, in milliseconds
+     * @return the changed paths, never empty; a watched directory itself if its events overflowed
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IOException if a new directory cannot be watched
+     */
+    Set<Path> awaitChanges(long quietPeriod, long maxBatchTime) throws InterruptedException, IOException {
+        Set<Path> changes = new LinkedHashSet<>();
+        while (changes.isEmpty()) {
+            WatchKey key = service.take();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBatchTime);
+            do {
+                collect(key, changes);
+                long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                key = left > 0 ? service.poll(Math.min(quietPeriod, left), TimeUnit.MILLISECONDS) : null;
+            } while (key != null);
+        }
+        return changes;
+    }
+
+    private void collect(WatchKey key, Set<Path> changes) throws IOException {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (directory == null) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changes.add(directory);
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && !missing.isEmpty()) {
+                created(path, changes);
+            }
+            if (recursive.contains(directory)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                    // files may have been created before the new directory is watched
+                    registerAll(path);
+                    try (Stream<Path> created = Files.walk(path)) {
+                        created.forEach(changes::add);
+                    }
+                }
+                changes.add(path);
+            } else if (files.contains(path)) {
+                changes.add(path);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    /**
+     * Watches the missing directories just created, or the nearest parent of those now closer to being created.
+     */
+    private void created(Path path, Set<Path> changes) throws IOException {
+        for (Iterator<Path> i = missing.iterator(); i.hasNext(); ) {
+            Path root = i.next();
+            if (!root.startsWith(path)) {
+                continue;
+            }
+            if (Files.isDirectory(root)) {
+                i.remove();
+                registerAll(root);
+                try (Stream<Path> created = Files.walk(root)) {
+                    created.forEach(changes::add);
+                }
+            } else {
+                registerParent(root);
+            }
+        }
+    }
+
+    private void registerParent(Path root) throws IOException {
+        Path parent = root.getParent();
+        while (parent != null && !Files.isDirectory(parent)) {
+            parent = parent.getParent();
+        }
+        if (parent != null) {
+            register(parent);
+        }
+    }
+
+    private void registerAll(Path root) throws IOException {
+        try (Stream<Path> tree = Files.walk(root)) {
+            for (Path directory : (Iterable<Path>) tree.filter(Files::isDirectory)::iterator) {
+                register(directory);
+                recursive.add(directory);
+            }
+        }
+    }
+
+    private void register(Path directory) throws IOException {
+        directories.put(
+                directory.register(
+                        service,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY),
+                directory);
+    }
+
+    /** {@inheritDoc} */
+    public void close() throws IOException {
+        service.close();
+    }
+}
@@ -18,16 +18,25 @@
  */
 package org.apache.maven.plugins.resources;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.maven.api.Language;
+import org.apache.maven.api.MojoExecution;
 import org.apache.maven.api.Project;
 import org.apache.maven.api.ProjectScope;
 import org.apache.maven.api.Session;
@@ -37,11 +46,15 @@ import org.apache.maven.api.plugin.Log;
 import org.apache.maven.api.plugin.MojoException;
 import org.apache.maven.api.plugin.annotations.Mojo;
 import org.apache.maven.api.plugin.annotations.Parameter;
+import org.apache.maven.api.services.Lookup;
 import org.apache.maven.api.services.ProjectManager;
+import org.apache.maven.shared.filtering.MavenFileFilter;
 import org.apache.maven.shared.filtering.MavenFilteringException;
 import org.apache.maven.shared.filtering.MavenResourcesExecution;
 import org.apache.maven.shared.filtering.MavenResourcesFiltering;
 import org.apache.maven.shared.filtering.Resource;
+import org.sonatype.plexus.build.incremental.BuildContext;
+import org.sonatype.plexus.build.incremental.ThreadBuildContext;
 
 /**
  * Copy resources for the main source code to the main output directory. Always uses the project.build.resources element
@@ -134,7 +147,7 @@ public class ResourcesMojo implements org.apache.maven.api.plugin.Mojo {
      *
      */
     @Inject
-    protected Map<String, MavenResourcesFiltering> mavenResourcesFilteringMap;
+    protected MavenFileFilter mavenFileFilter;
 
     /**
      *
@@ -142,6 +155,14 @@ public class ResourcesMojo implements org.apache.maven.api.plugin.Mojo {
     @Inject
     protected Session session;
 
+    /**
+     * The current mojo execution, which the incremental state is kept for.
+     *
+     * @since 4.0.0-beta-2
+     */
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+    protected MojoExecution mojoExecution;
+
     /**
      * Expressions preceded with this string won't be interpolated. Anything else preceded with this string will be
      * passed through unchanged. For example {@code \${foo}} will be replaced with {@code ${foo}} but {@code \\${foo}}
@@ -252,17 +273,18 @@ public class ResourcesMojo implements org.apache.maven.api.plugin.Mojo {
      * {@link MavenResourcesFiltering#filterResources(MavenResourcesExecution)}. They will be executed after the
      * resources copying/filtering.
      * </p>
+     * <p>
+     * Components also implementing {@link ResourceStage} transform each resource between its filtering and the writing
+     * of its output instead, when {@link #incremental} is enabled. Components implementing {@link IndependentFiltering}
+     * run concurrently with the independent components listed next to them. Components implementing
+     * {@link ChangeAwareFiltering} are told what changed since the previous build.
+     * </p>
      *
      * @since 2.4
      */
     @Parameter
     private List<String> mavenFilteringHints;
 
-    /**
-     * @since 2.4
-     */
-    private List<MavenResourcesFiltering> mavenFilteringComponents = new ArrayList<>();
-
     /**
      * stop searching endToken at the end of line
      *
@@ -288,6 +310,214 @@ public class ResourcesMojo implements org.apache.maven.api.plugin.Mojo {
     @Parameter(property = "maven.resources.skip", defaultValue = "false")
     private boolean skip;
 
+    /**
+     * <p>
+     * Only copy and filter the resources that changed since the previous build of this execution. A resource is
+     * processed again when its content changed, when its output is missing, or, if it is filtered, when the value of
+     * one of the expressions it references changed, so that changing one key of a filter file only filters the few
+     * resources using that key. The outputs of deleted resources are deleted. The user filter components of
+     * {@link #mavenFilteringHints} are given a build context reporting the same changes, so that they can restrict
+     * themselves to the changed resources as well.
+     * </p>
+     * <p>
+     * The state is kept below {@code ${project.build.directory}/maven-status/maven-resources-plugin}. Any change of
+     * this execution's configuration starts over with a full build, which still deletes the outputs the previous
+     * configuration produced and the current one does not.
+     * </p>
+     * <p>
+     * Since maven-filtering cannot do what they ask for, setting {@link #shareScans}, {@link #maxConcurrentFiles},
+     * {@link #maxConcurrentBytes}, more than one of the {@link #threads}, {@link #virtualThreads}, {@link #topFiles} or
+     * the {@code outputDirectories} of {@code copy-resources} processes the execution incrementally too, whatever this
+     * parameter says. The debug output names the parameter that did.
+     * </p>
+     *
+     * @since 4.0.0-beta-2
+     */
+    @Parameter(property = "maven.resources.incremental", defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * <p>
+     * Only check whether the outputs of this execution are up to date, without copying, filtering or writing anything,
+     * and fail with a {@link ResourcesOutOfDateException} if any output would change. The check compares the resources,
+     * the filter values and the configuration with the state the previous {@link #incremental} build of this execution
+     * recorded, so it only gives an answer for executions built incrementally; there being no such state counts as a
+     * change.
+     * </p>
+     * <p>
+     * Resources are not read unless their size or modification time changed, which lets IDEs and build orchestrators
+     * cheaply find out whether a module needs to be built at all, for instance with
+     * {@code mvn resources:resources resources:testResources -Dmaven.resources.checkUpToDate}. The resource directories
+     * are still walked, and each resource and output looked up, which takes about 20 microseconds per file on a warm
+     * file system cache.
+     * </p>
+     *
+     * @since 4.0.0-beta-2
+     */
+    @Parameter(property = "maven.resources.checkUpToDate", defaultValue = "false")
+    private boolean checkUpToDate;
+
+    /**
+     * Write the metrics of this execution as JSON to {@code metrics.json} below
+     * {@code ${project.build.directory}/maven-status/maven-resources-plugin}, in the directory of the goal and
+     * execution id, so that they can be collected across the modules of a build, and log a one line summary of them;
+     * without it, the summary is only logged at debug level. The metrics are the number of files scanned, excluded,
+     * copied, filtered and found up to date, the bytes read and written, and the wall clock and CPU time of each phase:
+     * filter setup, scan, filtering and every user filter component of {@link #mavenFilteringHints}. Files and bytes
+     * are only counted by executions processed {@link #incremental incrementally}, since maven-filtering copies the
+     * files on its own; the others only report the times.
+     *
+     * @since 4.0.0-beta-2
+     */
+    @Parameter(property = "maven.resources.metricsReport", defaultValue = "false")
+    private boolean metricsReport;
+
+    /**
+     * The number of slowest resources, and of resources giving the largest outputs, to log at the end of this
+     * execution and to write as JSON to {@code top-files.json}, next to the {@link #metricsReport}, so that they can be
+     * compared between builds. Since maven-filtering does not time each resource, an execution ranking them is
+     * processed like an {@link #incremental} one, so only the resources that changed since its previous build are
+     * processed and ranked; {@code 0} disables the ranking.
+     *
+     * @since 4.0.0-beta-2
+     */
+    @Parameter(property = "maven.resources.topFiles", defaultValue = "0")
+    private int topFiles;
+
+    /**
+     * <p>
+     * Let the executions of this plugin bound to the same phase of a project walk each of their resource directories
+     * once, which pays off when several {@code copy-resources} executions scan the same or overlapping directories.
+     * The first execution scanning a directory lists all of its files, and the next ones match their own includes and
+     * excludes against that list instead of walking the directory again. Each execution still copies and filters its
+     * files with its own filters, delimiters and other settings. A list is dropped as soon as an execution writes into
+     * the directory, and all of them once the project moves on to another phase.
+     * </p>
+     * <p>
+     * The executions enabling it are processed like {@link #incremental} ones, keeping their state and only copying
+     * what changed since their previous build, since maven-filtering walks the directories on its own. Only enable it
+     * when no other plugin writes into the shared directories between these executions.
+     * </p>
+     *
+     * @since 4.0.0-beta-2
+     */
+    @Parameter(property = "maven.resources.shareScans", defaultValue = "false")
+    private boolean shareScans;
+
+    /**
+     * <p>
+     * The maximum number of resources that all the executions of this plugin copy or filter at the same time, across
+     * all the modules of the build, {@code 0} for no limit. When many modules are built in parallel, for instance with
+     * {@code -T 2C}, bounding the file operations keeps them from thrashing the disk, which matters most on network
+     * volumes. The modules take turns, so that each of them makes progress.
+     * </p>
+     * <p>
+     * The limits are shared by the whole build: the first execution using them sets them, so they are best given as
+     * user properties, such as {@code -Dmaven.resources.maxConcurrentFiles=8}. The executions using them are processed
+     * like {@link #incremental} ones, since maven-filtering copies the resources on its own: a later build of such an
+     * execution only copies the resources that changed.
+     * </p>
+     *
+     * @since 4.0.0-beta-2
+     */
+    @Parameter(property = "maven.resources.maxConcurrentFiles", defaultValue = "0")
+    private int maxConcurrentFiles;
+
+    /**
+     * The maximum sum of the sizes of the resources that all the executions of this plugin copy or filter at the same
+     * time, across all the modules of the build, {@code 0} for no limit. A resource larger than this limit is processed
+     * alone. Shared by the whole build like {@link #maxConcurrentFiles}, and likewise processing the executions using
+     * it like {@link #incremental} ones.
+     *
+     * @since 4.0.0-beta-2
+     */
+    @Parameter(property = "maven.resources.maxConcurrentBytes", defaultValue = "0")
+    private long maxConcurrentBytes;
+
+    /**
+     * The most memory that all the executions of this plugin hold at once for the resources they read completely, in
+     * bytes, {@code 0} for no limit. {@link #incremental} processing reads the resources it filters, or passes to
+     * resource stages, completely, taking about four times their size in memory. A resource that does not fit in what
+     * is left of this budget is streamed from its source to its target instead, and only compiled into a template the
+     * next time it fits. This keeps parallel builds of large resources within small heaps. Shared by the whole build
+     * like {@link #maxConcurrentFiles}; maven-filtering always streams.
+     *
+     * @since 4.0.0-beta-2
+     */
+    @Parameter(property = "maven.resources.maxInFlightBytes", defaultValue = "0")
+    private long maxInFlightBytes;
+
+    /**
+     * The number of threads copying and filtering the resources of this execution, or the most threads to use with
+     * {@link #adaptiveThreads}. With more than one thread, the execution is processed like an {@link #incremental}
+     * one, which only copies the resources changed since its previous build, and the resource stages of
+     * {@link #mavenFilteringHints} may be called from several threads at once.
+     *
+     * @since 4.0.0-beta-2
+     */
+    @Parameter(property = "maven.resources.threads", defaultValue = "1")
+    private int threads;
+
+    /**
+     * Adapt the number of resources copied or filtered at once to the throughput measured while processing them,
+     * between {@link #minThreads} and {@link #threads}, rather than always using all the threads: the number is raised
+     * or lowered by one as long as this increases the files or bytes processed per second, which finds a good level
+     * both on fast local disks and on throttled CI volumes. The level reached is logged and written to the metrics.
+     *
+     * @since 4.0.0-beta-2
+     */
+    @Parameter(property = "maven.resources.adaptiveThreads", defaultValue = "false")
+    private boolean adaptiveThreads;
+
+    /**
+     * The fewest resources copied or filtered at once with {@link #adaptiveThreads}.
+     *
+     * @since 4.0.0-beta-2
+     */
+    @Parameter(property = "maven.resources.minThreads", defaultValue = "1")
+    private int minThreads;
+
+    /**
+     * Copy and filter each resource on its own virtual thread rather than on a pool of {@link #threads}, which lets
+     * the blocking file operations of many small resources overlap on slow file systems without sizing any pool. At
+     * most {@link #maxOpenFiles} resources are processed at once. Virtual threads need Java 21 or later: on older
+     * runtimes, the {@link #threads} are used instead. The execution is processed like an {@link #incremental} one,
+     * skipping the resources that did not change since its previous build.
+     *
+     * @since 4.0.0-beta-2
+     */
+    @Parameter(property = "maven.resources.virtualThreads", defaultValue = "false")
+    private boolean virtualThreads;
+
+    /**
+     * The most resources processed at once on {@link #virtualThreads}, which bounds the number of open files.
+     *
+     * @since 4.0.0-beta-2
+     */
+    @Parameter(property = "maven.resources.maxOpenFiles", defaultValue = "256")
+    private int maxOpenFiles;
+
+    /**
+     * The metrics of the current execution.
+     */
+    private ExecutionMetrics metrics = new ExecutionMetrics();
+
+    /**
+     * What the current execution changed, as given to the {@link ChangeAwareFiltering} user filter components.
+     */
+    private ResourceChanges changes = new ResourceChanges(true);
+
+    /**
+     * The only paths that changed since the previous execution, as a watcher saw them, {@code null} if any may have.
+     */
+    private Set<Path> changedPaths;
+
+    /**
+     * Looks up the user filter components of {@link #mavenFilteringHints} by hint, so that only the requested ones
+     * are created.
+     */
+    private Lookup lookup;
+
     @Inject
     private Log logger;
 
@@ -324,7 +554,12 @@ public class ResourcesMojo implements org.apache.maven.api.plugin.Mojo {
             getLog().warn("See https://maven.apache.org/general.html#encoding-warning");
         }
 
+        ResourceEvents.Execution event = new ResourceEvents.Execution();
+        event.begin();
+        metrics = new ExecutionMetrics(topFiles);
+        changes = new ResourceChanges(true);
         try {
+            ExecutionMetrics.Timer setup = metrics.time("filter setup");
             MavenResourcesExecution mavenResourcesExecution = new MavenResourcesExecution(
                     getResources(),
                     getOutputDirectory(),
@@ -360,12 +595,342 @@ public class ResourcesMojo implements org.apache.maven.api.plugin.Mojo {
             if (nonFilteredFileExtensions != null) {
                 mavenResourcesExecution.setNonFilteredFileExtensions(nonFilteredFileExtensions);
             }
-            mavenResourcesFiltering.filterResources(mavenResourcesExecution);
-
-            executeUserFilterComponents(mavenResourcesExecution);
+            setup.close();
+            if (checkUpToDate) {
+                checkUpToDate(mavenResourcesExecution);
+                return;
+            } else if (isProcessedIncrementally()) {
+                filterResourcesIncrementally(mavenResourcesExecution);
+            } else {
+                try (ExecutionMetrics.Timer timer = metrics.time("filtering")) {
+                    mavenResourcesFiltering.filterResources(mavenResourcesExecution);
+                }
+                executeUserFilterComponents(mavenResourcesExecution);
+            }
         } catch (MavenFilteringException e) {
             throw new MojoException(e.getMessage(), e);
+        } finally {
+            event.report(getProjectId(), getExecutionName(), getOutputDirectory(), incremental);
+        }
+        reportMetrics();
+    }
+
+    /**
+     * @return whether the resources are processed by the incremental engine rather than by maven-filtering, which
+     *         walks the resource directories itself, copies each resource on its own and only writes to one directory.
+     */
+    private boolean isProcessedIncrementally() {
+        if (incremental) {
+            return true;
+        }
+        String parameter = getParameterNeedingIncrementalProcessing();
+        if (parameter != null) {
+            getLog().debug("Processing the resources incrementally, maven-filtering does not support " + parameter);
+        }
+        return parameter != null;
+    }
+
+    /**
+     * @return the parameter asking for what only the incremental engine does, {@code null} if there is none.
+     */
+    private String getParameterNeedingIncrementalProcessing() {
+        if (shareScans) {
+            return "shareScans";
+        } else if (maxConcurrentFiles > 0) {
+            return "maxConcurrentFiles";
+        } else if (maxConcurrentBytes > 0) {
+            return "maxConcurrentBytes";
+        } else if (threads > 1) {
+            return "threads";
+        } else if (virtualThreads) {
+            return "virtualThreads";
+        } else if (topFiles > 0) {
+            return "topFiles";
+        } else if (!getOutputDirectories().isEmpty()) {
+            return "outputDirectories";
+        }
+        return null;
+    }
+
+    /**
+     * Logs the summary of the metrics, and writes them if {@link #metricsReport} is enabled; the summary is only
+     * logged at debug level otherwise.
+     */
+    private void reportMetrics() {
+        String summary = "Processed resources in " + metrics.summary();
+        if (metricsReport) {
+            getLog().info(summary);
+            Path report = getIncrementalStateDirectory().resolve("metrics.json");
+            try {
+                metrics.write(report, getProjectId(), getExecutionName());
+            } catch (IOException e) {
+                getLog().warn("Cannot write the metrics report " + report + ": " + e.getMessage());
+            }
+        } else {
+            getLog().debug(summary);
+        }
+        if (topFiles > 0) {
+            Path basedir = project.getBasedir();
+            getLog().info("Slowest resources:");
+            for (TopFiles.Item item : metrics.slowest()) {
+                getLog().info("  " + item.value() / 1_000_000 + " ms " + relativize(basedir, item.source()));
+            }
+            getLog().info("Largest resource outputs:");
+            for (TopFiles.Item item : metrics.largest()) {
+                getLog().info("  " + ExecutionMetrics.bytes(item.value()) + " " + relativize(basedir, item.source()));
+            }
+            Path report = getIncrementalStateDirectory().resolve("top-files.json");
+            try {
+                metrics.writeTopFiles(report, getProjectId(), getExecutionName());
+            } catch (IOException e) {
+                getLog().warn("Cannot write the top files report " + report + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static Path relativize(Path basedir, Path path) {
+        return path.startsWith(basedir) ? basedir.relativize(path) : path;
+    }
+
+    private String getProjectId() {
+        return project.getGroupId() + ":" + project.getArtifactId();
+    }
+
+    /**
+     * @return the goal and execution id, or the output directory if the execution is not known.
+     */
+    private String getExecutionName() {
+        return mojoExecution != null
+                ? mojoExecution.getGoal() + "@" + mojoExecution.getExecutionId()
+                : String.valueOf(getOutputDirectory());
+    }
+
+    /**
+     * Loads the filter files and sets the filter wrappers they give on the execution.
+     *
+     * @param mavenResourcesExecution {@link MavenResourcesExecution}
+     * @throws MavenFilteringException if a filter file cannot be loaded.
+     */
+    private void setFilterWrappers(MavenResourcesExecution mavenResourcesExecution) throws MavenFilteringException {
+        ResourceEvents.FilterSetup event = new ResourceEvents.FilterSetup();
+        event.begin();
+        mavenResourcesExecution.setFilterWrappers(mavenFileFilter.getDefaultFilterWrappers(mavenResourcesExecution));
+        event.report(mavenResourcesExecution.getFilters());
+    }
+
+    /**
+     * Fails unless the outputs are up to date, see {@link #checkUpToDate}.
+     *
+     * @param mavenResourcesExecution {@link MavenResourcesExecution}
+     * @throws ResourcesOutOfDateException if an output is not up to date.
+     * @throws MavenFilteringException in case of failure.
+     */
+    private void checkUpToDate(MavenResourcesExecution mavenResourcesExecution)
+            throws ResourcesOutOfDateException, MavenFilteringException {
+        setFilterWrappers(mavenResourcesExecution);
+
+        String change = newResourceProcessor().findChange(mavenResourcesExecution);
+        if (change != null) {
+            throw new ResourcesOutOfDateException(getOutputDirectory(), change);
         }
+        getLog().info("The resources in " + getOutputDirectory() + " are up to date");
+    }
+
+    /**
+     * Copies and filters only what changed since the previous build, see {@link #incremental}.
+     *
+     * @param mavenResourcesExecution {@link MavenResourcesExecution}
+     * @throws MavenFilteringException in case of failure.
+     */
+    private void filterResourcesIncrementally(MavenResourcesExecution mavenResourcesExecution)
+            throws MojoException, MavenFilteringException {
+        Map<String, MavenResourcesFiltering> components = getUserFilterComponents();
+        List<ResourceStage> stages = new ArrayList<>();
+        for (Iterator<MavenResourcesFiltering> i = components.values().iterator(); i.hasNext(); ) {
+            MavenResourcesFiltering component = i.next();
+            if (component instanceof ResourceStage) {
+                stages.add((ResourceStage) component);
+                i.remove();
+            }
+        }
+        ResourceProcessor processor;
+        try (ExecutionMetrics.Timer timer = metrics.time("filter setup")) {
+            setFilterWrappers(mavenResourcesExecution);
+            processor = newResourceProcessor();
+        }
+        processor.setStages(stages);
+        IncrementalManifest next;
+        Workers workers = newWorkers();
+        if (workers != null) {
+            try (workers) {
+                processor.setWorkers(workers);
+                next = processor.process(mavenResourcesExecution);
+                metrics.threads(workers.level());
+            }
+        } else {
+            next = processor.process(mavenResourcesExecution);
+        }
+        changes = processor.changes();
+
+        Path stateDirectory = getIncrementalStateDirectory();
+        Path manifestFile = stateDirectory.resolve("manifest");
+        try {
+            next.store(manifestFile);
+        } catch (IOException e) {
+            throw new MavenFilteringException("Cannot store incremental state " + manifestFile, e);
+        }
+
+        // user filter components get the same deltas, through the build context maven-filtering uses
+        Path contextFile = stateDirectory.resolve("build-context");
+        BuildContext previousContext = ThreadBuildContext.getContext();
+        try {
+            IncrementalBuildContext buildContext =
+                    new IncrementalBuildContext(contextFile, project.getBasedir(), processor.processed(), getLog());
+            ThreadBuildContext.setThreadBuildContext(buildContext);
+            executeUserFilterComponents(mavenResourcesExecution, components);
+            buildContext.commit();
+        } catch (IOException e) {
+            throw new MavenFilteringException("Cannot use incremental state " + contextFile, e);
+        } finally {
+            ThreadBuildContext.setThreadBuildContext(previousContext);
+        }
+    }
+
+    /**
+     * @return the threads processing the resources, or {@code null} to process them on the calling thread.
+     */
+    private Workers newWorkers() {
+        if (virtualThreads) {
+            Workers workers = Workers.virtual(getLog(), maxOpenFiles);
+            if (workers != null) {
+                return workers;
+            }
+            getLog().warn("Virtual threads need Java 21 or later, using " + threads + " thread"
+                    + (threads != 1 ? "s" : "") + " instead");
+        }
+        return threads > 1 ? new Workers(getLog(), minThreads, threads, adaptiveThreads) : null;
+    }
+
+    /**
+     * @return the processor for the incremental state of this execution.
+     */
+    private ResourceProcessor newResourceProcessor() {
+        Path stateDirectory = getIncrementalStateDirectory();
+        Path manifestFile = stateDirectory.resolve("manifest");
+        String configuration = IncrementalManifest.digest(getIncrementalConfiguration());
+        IncrementalManifest previous;
+        try {
+            previous = IncrementalManifest.load(manifestFile);
+        } catch (IOException e) {
+            getLog().warn("Ignoring unreadable incremental state " + manifestFile + ": " + e.getMessage());
+            previous = new IncrementalManifest(configuration);
+        }
+        TemplateCache templates =
+                new TemplateCache(stateDirectory.resolve("templates"), IncrementalManifest.digest(getTemplateSyntax()));
+        ResourceProcessor processor =
+                new ResourceProcessor(getLog(), mavenResourcesFiltering, configuration, previous, templates, metrics);
+        processor.setMirrors(getOutputDirectories());
+        if (shareScans) {
+            processor.setTrees(getSourceTrees());
+        }
+        processor.setChanged(changedPaths);
+        if (maxConcurrentFiles > 0 || maxConcurrentBytes > 0) {
+            processor.setScheduler(IoScheduler.of(session, maxConcurrentFiles, maxConcurrentBytes), getProjectId());
+        }
+        if (maxInFlightBytes > 0) {
+            processor.setBudget(MemoryBudget.of(session, maxInFlightBytes));
+        }
+        return processor;
+    }
+
+    /**
+     * @return the trees of the resource directories shared with the other executions of the phase
+     */
+    private SourceTrees getSourceTrees() {
+        String phase = mojoExecution != null ? mojoExecution.getLifecyclePhase() : null;
+        return SourceTrees.of(session, getProjectId(), phase);
+    }
+
+    /**
+     * Brings the outputs up to date after the given paths changed, taking the other resources as they were after the
+     * previous execution.
+     *
+     * @param changed the resources, resource directories and filter files that changed since the previous execution
+     * @throws MojoException if the resources cannot be processed
+     */
+    protected void doExecute(Set<Path> changed) throws MojoException {
+        if (shareScans) {
+            getSourceTrees().changed(changed);
+        }
+        changedPaths = changed;
+        try {
+            doExecute();
+        } finally {
+            changedPaths = null;
+        }
+    }
+
+    /**
+     * @return the directory keeping the incremental state and the metrics report of this execution, one per goal and
+     *         execution id so that it is still found once the configuration of the execution changed.
+     */
+    protected Path getIncrementalStateDirectory() {
+        Path buildDirectory = project.getBasedir().resolve(project.getBuild().getDirectory());
+        Path pluginDirectory = buildDirectory.resolve("maven-status").resolve("maven-resources-plugin");
+        if (mojoExecution != null) {
+            return pluginDirectory.resolve(mojoExecution.getGoal()).resolve(mojoExecution.getExecutionId());
+        }
+        StringBuilder id = new StringBuilder(String.valueOf(getOutputDirectory()));
+        for (Resource resource : getResources()) {
+            id.append('\n').append(resource.getDirectory());
+        }
+        return pluginDirectory.resolve(
+                getOutputDirectory().getFileName() + "-" + IncrementalManifest.digest(id).substring(0, 8));
+    }
+
+    /**
+     * @return the part of this execution's configuration that decides how a resource splits into literal text and
+     *         expressions, which the compiled templates depend on.
+     */
+    private String getTemplateSyntax() {
+        return String.join(
+                "\n",
+                String.valueOf(delimiters),
+                String.valueOf(useDefaultDelimiters),
+                String.valueOf(escapeString),
+                String.valueOf(supportMultiLineFiltering),
+                String.valueOf(encoding),
+                String.valueOf(propertiesEncoding));
+    }
+
+    /**
+     * @return everything in this execution's configuration that affects the outputs, except the filter values, which
+     *         are tracked per expression.
+     */
+    private String getIncrementalConfiguration() {
+        StringBuilder configuration = new StringBuilder();
+        configuration.append(getOutputDirectory()).append('\n');
+        configuration.append(encoding).append('\n');
+        configuration.append(propertiesEncoding).append('\n');
+        configuration.append(getCombinedFiltersList()).append('\n');
+        configuration.append(escapeString).append('\n');
+        configuration.append(escapeWindowsPaths).append('\n');
+        configuration.append(delimiters).append(useDefaultDelimiters).append('\n');
+        configuration.append(supportMultiLineFiltering).append('\n');
+        configuration.append(fileNameFiltering).append('\n');
+        configuration.append(includeEmptyDirs).append('\n');
+        configuration.append(addDefaultExcludes).append('\n');
+        configuration.append(nonFilteredFileExtensions).append('\n');
+        configuration.append(mavenFilteringHints).append('\n');
+        configuration.append(getOutputDirectories()).append('\n');
+        for (Resource resource : getResources()) {
+            configuration.append(resource.getDirectory()).append('|');
+            configuration.append(resource.getIncludes()).append('|');
+            configuration.append(resource.getExcludes()).append('|');
+            configuration.append(resource.isFiltering()).append('|');
+            configuration.append(resource.getTargetPath()).append('\n');
+        }
+        return configuration.toString();
     }
 
     /**
@@ -400,29 +965,139 @@ public class ResourcesMojo implements org.apache.maven.api.plugin.Mojo {
      */
     protected void executeUserFilterComponents(MavenResourcesExecution mavenResourcesExecution)
             throws MojoException, MavenFilteringException {
+        executeUserFilterComponents(mavenResourcesExecution, getUserFilterComponents());
+    }
 
+    /**
+     * @return the user filter components of {@link #mavenFilteringHints} by hint, in their order.
+     * @throws MojoException if a component is missing.
+     */
+    private Map<String, MavenResourcesFiltering> getUserFilterComponents() throws MojoException {
+        Map<String, MavenResourcesFiltering> mavenFilteringComponents = new LinkedHashMap<>();
         if (mavenFilteringHints != null) {
             for (String hint : mavenFilteringHints) {
-                MavenResourcesFiltering userFilterComponent = mavenResourcesFilteringMap.get(hint);
+                MavenResourcesFiltering userFilterComponent = getLookup()
+                        .lookupOptional(MavenResourcesFiltering.class, hint)
+                        .orElse(null);
                 if (userFilterComponent != null) {
                     getLog().debug("added user filter component with hint: " + hint);
-                    mavenFilteringComponents.add(userFilterComponent);
+                    mavenFilteringComponents.put(hint, userFilterComponent);
                 } else {
+                    // only a failing build creates all the components, to list them
                     throw new MojoException(
                             "User filter with hint `" + hint + "` requested, but not present. Discovered filters are: "
-                                    + mavenResourcesFilteringMap.keySet());
+                                    + getLookup()
+                                            .lookupMap(MavenResourcesFiltering.class)
+                                            .keySet());
                 }
             }
         } else {
             getLog().debug("no user filter components");
         }
+        return mavenFilteringComponents;
+    }
+
+    private Lookup getLookup() {
+        if (lookup == null) {
+            lookup = session.getService(Lookup.class);
+        }
+        return lookup;
+    }
 
-        if (mavenFilteringComponents != null && !mavenFilteringComponents.isEmpty()) {
+    /**
+     * @param mavenResourcesExecution {@link MavenResourcesExecution}
+     * @param mavenFilteringComponents the components to run, by hint
+     * @throws MavenFilteringException in case of failure.
+     */
+    private void executeUserFilterComponents(
+            MavenResourcesExecution mavenResourcesExecution,
+            Map<String, MavenResourcesFiltering> mavenFilteringComponents)
+            throws MavenFilteringException {
+        if (!mavenFilteringComponents.isEmpty()) {
             getLog().debug("execute user filters");
-            for (MavenResourcesFiltering filter : mavenFilteringComponents) {
+            List<Map.Entry<String, MavenResourcesFiltering>> independent = new ArrayList<>();
+            for (Map.Entry<String, MavenResourcesFiltering> filter : mavenFilteringComponents.entrySet()) {
+                if (filter.getValue() instanceof IndependentFiltering) {
+                    independent.add(filter);
+                } else {
+                    executeConcurrently(mavenResourcesExecution, independent);
+                    independent.clear();
+                    executeUserFilterComponent(mavenResourcesExecution, filter.getKey(), filter.getValue());
+                }
+            }
+            executeConcurrently(mavenResourcesExecution, independent);
+        }
+    }
+
+    /**
+     * Runs independent user filter components concurrently, see {@link IndependentFiltering}.
+     *
+     * @param mavenResourcesExecution {@link MavenResourcesExecution}
+     * @param filters the components to run, in the order of their hints
+     * @throws MavenFilteringException in case of failure.
+     */
+    private void executeConcurrently(
+            MavenResourcesExecution mavenResourcesExecution, List<Map.Entry<String, MavenResourcesFiltering>> filters)
+            throws MavenFilteringException {
+        if (filters.size() < 2) {
+            for (Map.Entry<String, MavenResourcesFiltering> filter : filters) {
+                executeUserFilterComponent(mavenResourcesExecution, filter.getKey(), filter.getValue());
+            }
+            return;
+        }
+        BuildContext buildContext = ThreadBuildContext.getContext();
+        int threads = Math.min(filters.size(), Math.max(2, Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Throwable failure = null;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Map.Entry<String, MavenResourcesFiltering> filter : filters) {
+                futures.add(executor.submit(() -> {
+                    ThreadBuildContext.setThreadBuildContext(buildContext);
+                    executeUserFilterComponent(mavenResourcesExecution, filter.getKey(), filter.getValue());
+                    return null;
+                }));
+            }
+            // waits for all of them, so that the failures are reported in the order of the hints
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoException("Interrupted while running the user filter components", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        if (failure instanceof MavenFilteringException) {
+            throw (MavenFilteringException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+    }
+
+    private void executeUserFilterComponent(
+            MavenResourcesExecution mavenResourcesExecution, String hint, MavenResourcesFiltering filter)
+            throws MavenFilteringException {
+        ResourceEvents.UserFilter event = new ResourceEvents.UserFilter();
+        event.begin();
+        try (ExecutionMetrics.Timer timer = metrics.time("user filter " + hint)) {
+            if (filter instanceof ChangeAwareFiltering) {
+                ((ChangeAwareFiltering) filter).filterResources(mavenResourcesExecution, changes);
+            } else {
                 filter.filterResources(mavenResourcesExecution);
             }
         }
+        event.report(hint, filter);
     }
 
     /**
@@ -482,6 +1157,15 @@ public class ResourcesMojo implements org.apache.maven.api.plugin.Mojo {
         return outputDirectory;
     }
 
+    /**
+     * @return the further directories receiving the same outputs as {@link #getOutputDirectory()}, none unless
+     *         overridden.
+     * @since 4.0.0-beta-2
+     */
+    public List<OutputDirectory> getOutputDirectories() {
+        return Collections.emptyList();
+    }
+
     /**
      * @param outputDirectory the output folder.
      */
@@ -559,6 +1243,76 @@ public class ResourcesMojo implements org.apache.maven.api.plugin.Mojo {
         this.useDefaultDelimiters = useDefaultDelimiters;
     }
 
+    /**
+     * @return {@link #incremental}
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * @param incremental true to only process what changed since the previous build.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * @return {@link #shareScans}
+     */
+    public boolean isShareScans() {
+        return shareScans;
+    }
+
+    /**
+     * @param shareScans true to walk each resource directory once for all the executions of the phase.
+     */
+    public void setShareScans(boolean shareScans) {
+        this.shareScans = shareScans;
+    }
+
+    /**
+     * @return {@link #checkUpToDate}
+     */
+    public boolean isCheckUpToDate() {
+        return checkUpToDate;
+    }
+
+    /**
+     * @param checkUpToDate true to only check whether the outputs are up to date.
+     */
+    public void setCheckUpToDate(boolean checkUpToDate) {
+        this.checkUpToDate = checkUpToDate;
+    }
+
+    /**
+     * @return {@link #metricsReport}
+     */
+    public boolean isMetricsReport() {
+        return metricsReport;
+    }
+
+    /**
+     * @param metricsReport true to write the metrics of this execution as JSON.
+     */
+    public void setMetricsReport(boolean metricsReport) {
+        this.metricsReport = metricsReport;
+    }
+
+    /**
+     * @return {@link #topFiles}
+     */
+    public int getTopFiles() {
+        return topFiles;
+    }
+
+    /**
+     * @param topFiles the number of slowest and largest resources to report.
+     */
+    public void setTopFiles(int topFiles) {
+        this.topFiles = topFiles;
+    }
+
     /**
      * @return {@link #skip}
      */
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.nio.file.Path;
+
+import org.apache.maven.api.plugin.MojoException;
+
+/**
+ * Thrown when the resources are {@linkplain ResourcesMojo#setCheckUpToDate(boolean) checked} and an output is not up
+ * to date, so that the IDEs and build orchestrators running the check can tell this answer from a failure of the check
+ * itself.
+ *
+ * @since 4.0.0-beta-2
+ */
+public class ResourcesOutOfDateException extends MojoException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String change;
+
+    /**
+     * @param outputDirectory the output directory that is not up to date
+     * @param change the first change found
+     */
+    public ResourcesOutOfDateException(Path outputDirectory, String change) {
+        super("The resources in " + outputDirectory + " are not up to date: " + change);
+        this.change = change;
+    }
+
+    /**
+     * @return the first change found, such as a resource that changed or an output that is missing
+     */
+    public String getChange() {
+        return change;
+    }
+}
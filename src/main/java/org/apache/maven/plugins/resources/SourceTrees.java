@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.api.Session;
+import org.apache.maven.api.SessionData;
+import org.codehaus.plexus.util.DirectoryScanner;
+
+/**
+ * The files and directories below the resource directories the executions of one phase of a project scan, each
+ * directory being walked once for all of them.
+ * <p>
+ * The scanners of the executions match their own includes and excludes against the names found by the first walk,
+ * so each execution still selects, copies and filters its files with its own configuration. The names below a
+ * directory are forgotten once an execution writes into it, and all of them once the project moves on to another
+ * phase. The paths a watcher saw changing are listed again on their own, without walking the rest of the directories.
+ *
+ * @since 4.0.0-beta-2
+ */
+final class SourceTrees {
+
+    /**
+     * The relative names of the files and of the directories below a directory, the directory itself being the empty
+     * name.
+     */
+    private record Tree(List<String> files, List<String> directories) {
+
+        /**
+         * @param root the directory of the tree
+         * @param paths files and directories at or below it, which may have been created, modified or deleted
+         * @return the tree with the names at or below the paths replaced by those found there now, in one pass over
+         *         the names whatever the number of paths
+         */
+        Tree update(Path root, Collection<Path> paths) {
+            Set<String> changed = new HashSet<>();
+            for (Path path : paths) {
+                changed.add(root.relativize(path).toString());
+            }
+            if (changed.contains("")) {
+                return walk(root, root);
+            }
+            List<String> files = new ArrayList<>(this.files.size());
+            for (String file : this.files) {
+                if (!changed.contains(file) && !isBelow(file, changed)) {
+                    files.add(file);
+                }
+            }
+            List<String> directories = new ArrayList<>(this.directories.size());
+            for (String directory : this.directories) {
+                if (!changed.contains(directory) && !isBelow(directory, changed)) {
+                    directories.add(directory);
+                }
+            }
+            for (String name : changed) {
+                Path path = root.resolve(name);
+                // a path below another changed one is found by walking that one
+                if (!isBelow(name, changed) && Files.exists(path)) {
+                    Tree found = walk(root, path);
+                    files.addAll(found.files());
+                    directories.addAll(found.directories());
+                }
+            }
+            return new Tree(files, directories);
+        }
+
+        /**
+         * @return whether one of the ancestors of the name, the root aside, is among the given names
+         */
+        private static boolean isBelow(String name, Set<String> ancestors) {
+            for (int end = name.lastIndexOf(File.separatorChar);
+                    end > 0;
+                    end = name.lastIndexOf(File.separatorChar, end - 1)) {
+                if (ancestors.contains(name.substring(0, end))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final Map<Path, Tree> trees = new ConcurrentHashMap<>();
+
+    private String phase;
+
+    /**
+     * @param session the session keeping the trees of each project
+     * @param project the identifier of the project
+     * @param phase the phase of the executions sharing the trees, {@code null} if not bound to one
+     * @return the trees of the project, emptied if they were walked for another phase
+     */
+    static SourceTrees of(Session session, String project, String phase) {
+        SourceTrees trees =
+                session.getData().computeIfAbsent(SessionData.key(SourceTrees.class, project), SourceTrees::new);
+        trees.enter(phase);
+        return trees;
+    }
+
+    private synchronized void enter(String phase) {
+        if (!Objects.equals(this.phase, phase)) {
+            trees.clear();
+            this.phase = phase;
+        }
+    }
+
+    /**
+     * @param directory the directory to scan
+     * @return a scanner selecting among the names found by the first walk of the directory
+     */
+    DirectoryScanner newScanner(Path directory) {
+        DirectoryScanner scanner = new TreeScanner();
+        scanner.setBasedir(directory.toFile());
+        return scanner;
+    }
+
+    /**
+     * Forgets the names below the directories an output directory overlaps.
+     *
+     * @param output the directory written into
+     */
+    void written(Path output) {
+        Path directory = output.toAbsolutePath().normalize();
+        trees.keySet().removeIf(root -> root.startsWith(directory) || directory.startsWith(root));
+    }
+
+    /**
+     * Lists the paths changed outside of the executions again, such as those a watcher saw: the names at or below each
+     * path are replaced by those found there now. A tree below a changed path is forgotten.
+     *
+     * @param paths the files and directories created, modified or deleted
+     */
+    void changed(Collection<Path> paths) {
+        List<Path> normalized = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            normalized.add(path.toAbsolutePath().normalize());
+        }
+        for (Path root : trees.keySet()) {
+            List<Path> below = new ArrayList<>();
+            boolean forget = false;
+            for (Path path : normalized) {
+                if (path.startsWith(root)) {
+                    below.add(path);
+                } else if (root.startsWith(path)) {
+                    forget = true;
+                }
+            }
+            if (forget) {
+                trees.remove(root);
+            } else if (!below.isEmpty()) {
+                trees.computeIfPresent(root, (r, tree) -> tree.update(r, below));
+            }
+        }
+    }
+
+    private Tree tree(Path directory) {
+        Path root = directory.toAbsolutePath().normalize();
+        return trees.computeIfAbsent(root, r -> walk(r, r));
+    }
+
+    /**
+     * @param root the directory the names are relative to
+     * @param start the file or directory to walk, the root or below it
+     * @return the names of the files and directories at or below the start
+     */
+    private static Tree walk(Path root, Path start) {
+        List<String> files = new ArrayList<>();
+        List<String> directories = new ArrayList<>();
+        try {
+            Files.walkFileTree(
+                    start, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+                        /** {@inheritDoc} */
+                        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                            directories.add(root.relativize(dir).toString());
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        /** {@inheritDoc} */
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                            if (attributes.isRegularFile()) {
+                                files.add(root.relativize(file).toString());
+                            }
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        /** {@inheritDoc} */
+                        public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                            if (e instanceof FileSystemLoopException) {
+                                return FileVisitResult.CONTINUE;
+                            }
+                            throw e;
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Tree(files, directories);
+    }
+
+    /**
+     * Selects the files and directories the includes and excludes match among the names of the tree, instead of
+     * walking the directory.
+     */
+    private class TreeScanner extends DirectoryScanner {
+
+        private String[] includedFiles = new String[0];
+
+        private String[] excludedFiles = new String[0];
+
+        private String[] includedDirectories = new String[0];
+
+        /** {@inheritDoc} */
+        public void scan() {
+            setupDefaultFilters();
+            setupMatchPatterns();
+            Tree tree = tree(getBasedir().toPath());
+            List<String> included = new ArrayList<>();
+            List<String> excluded = new ArrayList<>();
+            for (String name : tree.files()) {
+                if (isIncluded(name)) {
+                    (isExcluded(name) ? excluded : included).add(name);
+                }
+            }
+            includedFiles = included.toArray(new String[0]);
+            excludedFiles = excluded.toArray(new String[0]);
+            included.clear();
+            for (String name : tree.directories()) {
+                if (isIncluded(name) && !isExcluded(name)) {
+                    included.add(name);
+                }
+            }
+            includedDirectories = included.toArray(new String[0]);
+        }
+
+        /** {@inheritDoc} */
+        public String[] getIncludedFiles() {
+            return includedFiles;
+        }
+
+        /** {@inheritDoc} */
+        public String[] getExcludedFiles() {
+            return excludedFiles;
+        }
+
+        /** {@inheritDoc} */
+        public String[] getIncludedDirectories() {
+            return includedDirectories;
+        }
+    }
+}
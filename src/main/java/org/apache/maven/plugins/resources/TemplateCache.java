@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Stores the {@link CompiledTemplate} of each filtered source of an execution, one file per source.
+ * <p>
+ * A stored template is keyed by a digest of the delimiters, the escape string, multi-line filtering and the encodings,
+ * and by the digest of its source content: changing any of them makes the template unusable, and it is replaced the
+ * next time the source is filtered.
+ *
+ * @since 4.0.0-beta-2
+ */
+final class TemplateCache {
+
+    private static final int MAGIC = 0x4d525054;
+
+    private static final int VERSION = 2;
+
+    private final Path directory;
+
+    private final String configuration;
+
+    /**
+     * @param directory the directory holding the templates
+     * @param configuration the digest of the configuration deciding how a resource splits into expressions
+     */
+    TemplateCache(Path directory, String configuration) {
+        this.directory = directory;
+        this.configuration = configuration;
+    }
+
+    /**
+     * @param source the source file
+     * @param hash the digest of the current source content
+     * @return the template compiled from this very source content, or {@code null} if there is none
+     * @throws IOException if the template cannot be read
+     */
+    CompiledTemplate load(Path source, String hash) throws IOException {
+        Path file = file(source);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC
+                    || in.readInt() != VERSION
+                    || !configuration.equals(in.readUTF())
+                    || !source.toString().equals(in.readUTF())
+                    || !hash.equals(in.readUTF())) {
+                return null;
+            }
+            return CompiledTemplate.read(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param source the source file
+     * @param hash the digest of the source content the template was compiled from
+     * @param template the template
+     * @throws IOException if the template cannot be written
+     */
+    void store(Path source, String hash, CompiledTemplate template) throws IOException {
+        Path file = file(source);
+        Files.createDirectories(directory);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(configuration);
+            out.writeUTF(source.toString());
+            out.writeUTF(hash);
+            template.write(out);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param source the source file
+     * @throws IOException if the template cannot be deleted
+     */
+    void remove(Path source) throws IOException {
+        Files.deleteIfExists(file(source));
+    }
+
+    private Path file(Path source) {
+        return directory.resolve(IncrementalManifest.digest(source.toString()).substring(0, 16));
+    }
+}
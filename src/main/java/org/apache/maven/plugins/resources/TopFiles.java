@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the files with the highest values seen so far, such as the slowest or the largest ones, in a min-heap bounded
+ * to their number: offering a file costs {@code O(log n)} at most, and nothing when its value is below all the kept
+ * ones.
+ *
+ * @since 4.0.0-beta-2
+ */
+final class TopFiles {
+
+    /**
+     * A kept file and its value.
+     */
+    record Item(Path source, long value) {}
+
+    private final int size;
+
+    private final PriorityQueue<Item> heap;
+
+    /**
+     * @param size the number of files to keep, none if zero or less
+     */
+    TopFiles(int size) {
+        this.size = size;
+        this.heap = new PriorityQueue<>(Math.max(1, size), Comparator.comparingLong(Item::value));
+    }
+
+    /**
+     * @param source the file
+     * @param value its value
+     */
+    synchronized void offer(Path source, long value) {
+        if (heap.size() < size) {
+            heap.add(new Item(source, value));
+        } else if (size > 0 && value > heap.peek().value()) {
+            heap.poll();
+            heap.add(new Item(source, value));
+        }
+    }
+
+    /**
+     * @return the kept files, highest value first
+     */
+    synchronized List<Item> items() {
+        List<Item> items = new ArrayList<>(heap);
+        items.sort(Comparator.comparingLong(Item::value).reversed());
+        return items;
+    }
+}
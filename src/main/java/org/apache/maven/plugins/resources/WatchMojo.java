@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.api.plugin.MojoException;
+import org.apache.maven.api.plugin.annotations.Mojo;
+import org.apache.maven.api.plugin.annotations.Parameter;
+import org.apache.maven.shared.filtering.Resource;
+
+/**
+ * Copies the resources like the {@code resources} goal, then keeps watching the resource directories and the filter
+ * files, and brings the output directory up to date after every change until the build is interrupted.
+ * <p>
+ * Every update is {@linkplain #setIncremental(boolean) incremental}: only the resources that changed are copied, only
+ * the filtered resources referencing a changed value are filtered again, the outputs of deleted resources are deleted,
+ * and an output whose content would not change is not written. The resource directories are {@linkplain
+ * #setShareScans(boolean) walked} once: an update only lists and looks at the paths that changed, and takes the other
+ * resources as they were.
+ *
+ * @since 4.0.0-beta-2
+ */
+@Mojo(name = "watch", projectRequired = true)
+public class WatchMojo extends ResourcesMojo {
+
+    /**
+     * The time in milliseconds without any further change after which a batch of changes is processed.
+     */
+    @Parameter(property = "maven.resources.watchDelay", defaultValue = "200")
+    private long watchDelay;
+
+    /**
+     * The longest time in milliseconds a batch of changes waits for further changes before it is processed anyway, so
+     * that files changing continuously do not hold back the update.
+     */
+    @Parameter(property = "maven.resources.watchMaxDelay", defaultValue = "2000")
+    private long watchMaxDelay;
+
+    /** {@inheritDoc} */
+    public void execute() throws MojoException {
+        setIncremental(true);
+        setShareScans(true);
+        super.execute();
+        if (isSkip()) {
+            return;
+        }
+
+        List<Path> directories = new ArrayList<>();
+        for (Resource resource : getResources()) {
+            directories.add(project.getBasedir().resolve(resource.getDirectory()));
+        }
+        List<Path> filterFiles = new ArrayList<>();
+        List<String> combinedFilters = getCombinedFiltersList();
+        if (combinedFilters != null) {
+            for (String filter : combinedFilters) {
+                filterFiles.add(project.getBasedir().resolve(filter));
+            }
+        }
+
+        try (ResourceWatcher watcher = new ResourceWatcher(directories, filterFiles)) {
+            getLog().info("Watching " + directories.size() + " resource director"
+                    + (directories.size() != 1 ? "ies" : "y") + " for changes, interrupt the build to stop");
+            while (true) {
+                Set<Path> changes = watcher.awaitChanges(watchDelay, watchMaxDelay);
+                getLog().debug("Changed: " + changes);
+                try {
+                    doExecute(changes);
+                } catch (MojoException e) {
+                    // keep watching, the next change may well fix it
+                    getLog().error(e.getMessage(), e);
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoException("Cannot watch the resource directories: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return {@link #watchDelay}
+     */
+    public long getWatchDelay() {
+        return watchDelay;
+    }
+
+    /**
+     * @param watchDelay the quiet period ending a batch of changes, in milliseconds.
+     */
+    public void setWatchDelay(long watchDelay) {
+        this.watchDelay = watchDelay;
+    }
+
+    /**
+     * @return {@link #watchMaxDelay}
+     */
+    public long getWatchMaxDelay() {
+        return watchMaxDelay;
+    }
+
+    /**
+     * @param watchMaxDelay the longest time a batch of changes waits for further changes, in milliseconds.
+     */
+    public void setWatchMaxDelay(long watchMaxDelay) {
+        this.watchMaxDelay = watchMaxDelay;
+    }
+}
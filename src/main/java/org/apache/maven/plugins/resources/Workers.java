@@ -0,0 +1,423 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.api.plugin.Log;
+
+/**
+ * Copies or filters the files of an execution on several threads.
+ * <p>
+ * With a fixed level, as many files are processed at once as there are threads. An adaptive level starts at the number
+ * of processors within the bounds, then climbs: every {@value #WINDOW_MILLIS} ms, the files and bytes processed per
+ * second are compared with the previous window, and the level moves one more step in the same direction if either
+ * improved by more than {@value #TOLERANCE_PERCENT}%, and one step back otherwise. The level thus settles around the
+ * best one for the disk at hand, without any tuning.
+ * <p>
+ * On Java 21 and later, each task may run on its own virtual thread instead, so that the latency of the blocking file
+ * operations of many small files overlaps without any thread pool to size; a semaphore then bounds the number of files
+ * open at once. Since the plugin runs on Java 17, virtual threads are looked up by reflection.
+ * <p>
+ * The tasks can be {@link #plan(List, long[]) planned} by their cost first: the most expensive ones start first, so
+ * that a large file started last does not keep one thread busy long after the others are done, and the cheap ones are
+ * run in batches, so that many tiny files do not each pay for a task.
+ *
+ * @since 4.0.0-beta-2
+ */
+final class Workers implements AutoCloseable {
+
+    /**
+     * The copy or filtering of one file.
+     */
+    interface Task {
+
+        /**
+         * @return the number of bytes processed, {@code 0} if the file was up to date
+         * @throws IOException if the file cannot be processed
+         */
+        long run() throws IOException;
+
+        /**
+         * @return the number of files the task processes, which the adaptive level measures its throughput in
+         */
+        default int files() {
+            return 1;
+        }
+    }
+
+    private static final long WINDOW_MILLIS = 100;
+
+    private static final int TOLERANCE_PERCENT = 5;
+
+    /**
+     * The cost of a file besides its bytes, for opening, reading the attributes and closing.
+     */
+    private static final long FILE_COST = 4096;
+
+    /**
+     * The most a batch of cheap tasks costs.
+     */
+    private static final long BATCH_COST = 1024 * 1024;
+
+    /**
+     * A task and its cost.
+     */
+    private record Planned(Task task, long cost) {}
+
+    /**
+     * Cheap tasks run one after the other as a single task.
+     */
+    private record Batch(List<Task> tasks) implements Task {
+
+        /** {@inheritDoc} */
+        public long run() throws IOException {
+            long bytes = 0;
+            for (Task task : tasks) {
+                bytes += task.run();
+            }
+            return bytes;
+        }
+
+        /** {@inheritDoc} */
+        public int files() {
+            return tasks.size();
+        }
+    }
+
+    private final Log log;
+
+    private final int min;
+
+    private final int max;
+
+    private final boolean adaptive;
+
+    private final ExecutorService executor;
+
+    /**
+     * Bounds the tasks running at once on their own virtual threads, {@code null} for a pool of platform threads.
+     */
+    private final Semaphore openFiles;
+
+    private int level;
+
+    private int active;
+
+    private int direction = 1;
+
+    private long windowStart;
+
+    private long windowFiles;
+
+    private long windowBytes;
+
+    private double previousFiles = -1;
+
+    private double previousBytes = -1;
+
+    /**
+     * @param log the mojo log
+     * @param min the lowest level an adaptive level goes down to
+     * @param max the number of threads, the highest level
+     * @param adaptive whether the level adapts to the measured throughput, or stays at {@code max}
+     */
+    Workers(Log log, int min, int max, boolean adaptive) {
+        this.log = log;
+        this.max = Math.max(1, max);
+        this.min = Math.max(1, Math.min(min, this.max));
+        this.adaptive = adaptive;
+        this.level = adaptive
+                ? Math.max(this.min, Math.min(this.max, Runtime.getRuntime().availableProcessors()))
+                : this.max;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = this.max > 1
+                ? Executors.newFixedThreadPool(this.max, runnable -> {
+                    Thread thread = new Thread(runnable, "resources-worker-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+        this.openFiles = null;
+    }
+
+    private Workers(Log log, ExecutorService executor, int maxOpenFiles) {
+        this.log = log;
+        this.min = maxOpenFiles;
+        this.max = maxOpenFiles;
+        this.adaptive = false;
+        this.level = maxOpenFiles;
+        this.executor = executor;
+        this.openFiles = new Semaphore(maxOpenFiles);
+    }
+
+    /**
+     * @param log the mojo log
+     * @param maxOpenFiles the most tasks running at once
+     * @return workers running each task on its own virtual thread, or {@code null} if the runtime has none
+     */
+    static Workers virtual(Log log, int maxOpenFiles) {
+        ExecutorService executor;
+        try {
+            executor = (ExecutorService)
+                    Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+        return new Workers(log, executor, Math.max(1, maxOpenFiles));
+    }
+
+    /**
+     * @return the most files processed at once
+     */
+    int max() {
+        return max;
+    }
+
+    /**
+     * @return the number of files processed at once when the last task completed
+     */
+    synchronized int level() {
+        return level;
+    }
+
+    /**
+     * Orders the tasks by decreasing cost, with the tasks costing less than a batch grouped into batches. A batch costs
+     * at most {@value #BATCH_COST}, and less when there are too few cheap tasks to give each thread several batches.
+     *
+     * @param tasks the tasks
+     * @param costs the cost of each task, the size of its file
+     * @return the tasks and batches of tasks to run, the most expensive first
+     */
+    List<Task> plan(List<Task> tasks, long[] costs) {
+        List<Planned> planned = new ArrayList<>(tasks.size());
+        long cheap = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            planned.add(new Planned(tasks.get(i), FILE_COST + Math.max(0, costs[i])));
+            cheap += costs[i] < BATCH_COST ? FILE_COST + Math.max(0, costs[i]) : 0;
+        }
+        planned.sort(Comparator.comparingLong(Planned::cost).reversed());
+        long batchCost = Math.max(FILE_COST, Math.min(BATCH_COST, cheap / (max * 8L)));
+
+        List<Planned> batched = new ArrayList<>();
+        List<Task> batch = new ArrayList<>();
+        long cost = 0;
+        for (Planned task : planned) {
+            if (task.cost() >= batchCost) {
+                batched.add(task);
+                continue;
+            }
+            batch.add(task.task());
+            cost += task.cost();
+            if (cost >= batchCost) {
+                batched.add(new Planned(batch(batch), cost));
+                batch = new ArrayList<>();
+                cost = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            batched.add(new Planned(batch(batch), cost));
+        }
+        batched.sort(Comparator.comparingLong(Planned::cost).reversed());
+
+        List<Task> result = new ArrayList<>(batched.size());
+        for (Planned task : batched) {
+            result.add(task.task());
+        }
+        return result;
+    }
+
+    private static Task batch(List<Task> tasks) {
+        if (tasks.size() == 1) {
+            return tasks.get(0);
+        }
+        return new Batch(tasks);
+    }
+
+    /**
+     * Runs all the tasks, and waits for them. Once a task failed, the tasks not started yet are skipped.
+     *
+     * @param tasks the tasks to run
+     * @throws IOException the failure of the first failed task, with the failures of the others suppressed
+     */
+    void run(List<Task> tasks) throws IOException {
+        if (executor == null) {
+            for (Task task : tasks) {
+                task.run();
+            }
+            return;
+        } else if (openFiles != null) {
+            runOnVirtualThreads(tasks);
+            return;
+        }
+        synchronized (this) {
+            startWindow();
+        }
+        AtomicInteger next = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(max, tasks.size()); i++) {
+            workers.add(executor.submit(() -> {
+                for (int index; (index = next.getAndIncrement()) < tasks.size(); ) {
+                    Task task = tasks.get(index);
+                    begin();
+                    long bytes = 0;
+                    try {
+                        bytes = task.run();
+                    } catch (IOException | RuntimeException | Error e) {
+                        next.set(tasks.size());
+                        throw e;
+                    } finally {
+                        end(task.files(), bytes);
+                    }
+                }
+                return null;
+            }));
+        }
+        await(workers, () -> next.set(tasks.size()));
+    }
+
+    /**
+     * Runs each task on its own virtual thread, as many at once as there are open files allowed.
+     */
+    private void runOnVirtualThreads(List<Task> tasks) throws IOException {
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<?>> threads = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            threads.add(executor.submit(() -> {
+                openFiles.acquire();
+                try {
+                    if (!failed.get()) {
+                        task.run();
+                    }
+                } catch (IOException | RuntimeException | Error e) {
+                    failed.set(true);
+                    throw e;
+                } finally {
+                    openFiles.release();
+                }
+                return null;
+            }));
+        }
+        await(threads, () -> failed.set(true));
+    }
+
+    /**
+     * Waits for all the futures, then throws the first failure.
+     *
+     * @param cancel skips the tasks not started yet
+     */
+    private static void await(List<Future<?>> futures, Runnable cancel) throws IOException {
+        Throwable failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                cancel.run();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while processing resources");
+            }
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new IOException(failure);
+        }
+    }
+
+    private synchronized void begin() throws InterruptedIOException {
+        try {
+            while (active >= level) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to process a resource");
+        }
+        active++;
+    }
+
+    private synchronized void end(int files, long bytes) {
+        active--;
+        windowFiles += files;
+        windowBytes += bytes;
+        long elapsed = System.nanoTime() - windowStart;
+        if (adaptive && elapsed >= WINDOW_MILLIS * 1_000_000 && windowFiles >= level) {
+            adapt(elapsed);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Moves the level one step, in the direction that last improved the throughput.
+     */
+    private void adapt(long elapsed) {
+        double files = windowFiles * 1e9 / elapsed;
+        double bytes = windowBytes * 1e9 / elapsed;
+        double threshold = 1 + TOLERANCE_PERCENT / 100.0;
+        if (previousFiles >= 0 && files <= previousFiles * threshold && bytes <= previousBytes * threshold) {
+            direction = -direction;
+        }
+        previousFiles = files;
+        previousBytes = bytes;
+        int adapted = Math.max(min, Math.min(max, level + direction));
+        if (adapted != level) {
+            log.debug(String.format(
+                    Locale.ROOT,
+                    "Processing %d files at once instead of %d, at %.0f files/s and %.0f bytes/s",
+                    adapted, level, files, bytes));
+            level = adapted;
+        }
+        startWindow();
+    }
+
+    private void startWindow() {
+        windowStart = System.nanoTime();
+        windowFiles = 0;
+        windowBytes = 0;
+    }
+
+    /** {@inheritDoc} */
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BufferPoolTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void buffersAreReusedOnceGivenBack() {
+        BufferPool pool = new BufferPool(2);
+        BufferPool.Buffers first = pool.take();
+        BufferPool.Buffers second = pool.take();
+        assertNotSame(first, second);
+
+        first.close();
+        second.close();
+        BufferPool.Buffers again = pool.take();
+        assertTrue(again == first || again == second);
+        pool.take().close();
+        again.close();
+
+        BufferPool single = new BufferPool(1);
+        BufferPool.Buffers buffers = single.take();
+        buffers.close();
+        assertSame(buffers, single.take());
+    }
+
+    @Test
+    void copiesAndDigestsSpanningSeveralBuffers() throws Exception {
+        byte[] content = new byte[BufferPool.BYTES * 3 + 17];
+        new Random(42).nextBytes(content);
+        Path source = Files.write(directory.resolve("source.bin"), content);
+        Path target = directory.resolve("target.bin");
+        Files.write(target, new byte[BufferPool.BYTES * 5]);
+
+        try (BufferPool.Buffers buffers = new BufferPool(1).take()) {
+            assertEquals(IncrementalManifest.digest(content), buffers.copy(source, target));
+            assertArrayEquals(content, Files.readAllBytes(target));
+            assertEquals(IncrementalManifest.digest(content), buffers.digest(target));
+
+            assertTrue(buffers.holds(target, content));
+            content[content.length - 1]++;
+            assertFalse(buffers.holds(target, content));
+            assertFalse(buffers.holds(target, new byte[content.length - 1]));
+        }
+    }
+
+    @Test
+    void readsAndTransfersWholeTexts() throws Exception {
+        String text = "line ${key}\n".repeat(BufferPool.CHARS);
+
+        try (BufferPool.Buffers buffers = new BufferPool(1).take()) {
+            assertEquals(text, buffers.read(new StringReader(text)));
+            assertEquals("short", buffers.read(new StringReader("short")));
+
+            StringWriter writer = new StringWriter();
+            buffers.transfer(new StringReader(text), writer);
+            assertEquals(text, writer.toString());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledTemplateTest {
+
+    private static final List<Expressions.Delimiter> DELIMITERS =
+            Expressions.delimiters(Expressions.DEFAULT_DELIMITERS);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void renderReplacesSlots() {
+        CompiledTemplate template =
+                CompiledTemplate.compile("url=${db.url}\nuser=@db.user@\n", DELIMITERS, null, false);
+
+        assertNotNull(template);
+        assertEquals(2, template.slots());
+        assertEquals(
+                "url=jdbc:h2:mem\nuser=sa\n",
+                template.render(values(Map.of("db.url", "jdbc:h2:mem", "db.user", "sa"))));
+        assertEquals(
+                "url=jdbc:h2:file\nuser=@db.user@\n", template.render(values(Map.of("db.url", "jdbc:h2:file"))));
+    }
+
+    @Test
+    void renderingResolvedValuesIntoABufferAllocatesNothing() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append("key").append(i).append("=${value.").append(i % 10).append("}\n");
+        }
+        CompiledTemplate template = CompiledTemplate.compile(text.toString(), DELIMITERS, null, false);
+        assertNotNull(template);
+        FilterValues values = values(Map.of("value.1", "C:\\data\\one"));
+        StringBuilder output = new StringBuilder();
+        template.render(values, output);
+        String expected = output.toString();
+
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100; i++) {
+            output.setLength(0);
+            template.render(values, output);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(expected, output.toString());
+        assertEquals(expected, template.render(values));
+        assertTrue(allocated < 1024, allocated + " bytes allocated");
+    }
+
+    @Test
+    void escapedExpressionsStayLiteral() {
+        CompiledTemplate template = CompiledTemplate.compile("\\${name} is ${name}", DELIMITERS, "\\", false);
+
+        assertNotNull(template);
+        assertEquals(1, template.slots());
+        assertEquals("${name} is maven", template.render(values(Map.of("name", "maven"))));
+    }
+
+    @Test
+    void overlappingExpressionsAreNotCompiled() {
+        assertNull(CompiledTemplate.compile("mail=@${user}@host@", DELIMITERS, null, false));
+        assertNull(CompiledTemplate.compile("a@b@c@d", DELIMITERS, null, false));
+    }
+
+    @Test
+    void storedTemplateIsBoundToItsSourceContent() throws Exception {
+        Path source = directory.resolve("app.properties");
+        CompiledTemplate template = CompiledTemplate.compile("name=${name}", DELIMITERS, null, false);
+        TemplateCache cache = new TemplateCache(directory.resolve("templates"), "syntax");
+        cache.store(source, "hash", template);
+
+        CompiledTemplate loaded = cache.load(source, "hash");
+        assertNotNull(loaded);
+        assertEquals("name=maven", loaded.render(values(Map.of("name", "maven"))));
+        assertNull(cache.load(source, "changed"));
+        assertNull(new TemplateCache(directory.resolve("templates"), "other").load(source, "hash"));
+
+        cache.remove(source);
+        assertNull(cache.load(source, "hash"));
+    }
+
+    private static FilterValues values(Map<String, String> properties) {
+        return new FilterValues(List.of(new PropertiesFilterWrapper(properties)), DELIMITERS.get(0));
+    }
+}
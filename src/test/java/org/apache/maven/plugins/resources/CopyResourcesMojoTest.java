@@ -20,7 +20,9 @@ package org.apache.maven.plugins.resources;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.List;
 
 import org.apache.maven.api.Project;
 import org.apache.maven.api.di.Provides;
@@ -37,6 +39,7 @@ import org.junit.jupiter.api.extension.ExtensionContext;
 
 import static org.apache.maven.api.plugin.testing.MojoExtension.getBasedir;
 import static org.apache.maven.api.plugin.testing.MojoExtension.getPluginBasedir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -61,6 +64,34 @@ class CopyResourcesMojoTest {
         assertTrue(Files.exists(result), result + " does not exist");
     }
 
+    @Test
+    @InjectMojo(goal = "copy-resources", pom = "classpath:/unit/resources-test/plugin-config.xml")
+    @Basedir
+    void copyToSeveralOutputDirectories(CopyResourcesMojo mojo) throws Exception {
+        Resource resource = new Resource();
+        resource.setDirectory(getPluginBasedir() + "/src/test/unit-files/copy-resources-test/no-filter");
+        resource.setFiltering(false);
+        mojo.setResources(Collections.singletonList(resource));
+        Path target = Paths.get(getBasedir(), "target/copy-resources-test/fan-out");
+        mojo.setOutputDirectory(target.resolve("classes"));
+        OutputDirectory war = new OutputDirectory();
+        war.setDirectory(target.resolve("war"));
+        war.setTargetPath("WEB-INF/classes");
+        OutputDirectory docker = new OutputDirectory();
+        docker.setDirectory(target.resolve("docker"));
+        docker.setLink(true);
+        mojo.setOutputDirectories(List.of(war, docker));
+
+        mojo.execute();
+
+        Path result = target.resolve("classes/config.properties");
+        assertTrue(Files.exists(result), result + " does not exist");
+        Path copy = target.resolve("war/WEB-INF/classes/config.properties");
+        assertEquals(Files.readString(result), Files.readString(copy));
+        Path link = target.resolve("docker/config.properties");
+        assertEquals(Files.readString(result), Files.readString(link));
+    }
+
     private static final String LOCAL_REPO = "/target/local-repo";
 
     @Provides
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ExecutionMetricsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void phasesTimedSeveralTimesAddUp() throws Exception {
+        ExecutionMetrics metrics = new ExecutionMetrics();
+        for (int i = 0; i < 2; i++) {
+            try (ExecutionMetrics.Timer timer = metrics.time("scan")) {
+                Thread.sleep(20);
+            }
+        }
+
+        String summary = metrics.summary();
+
+        assertTrue(summary.matches("\\d+ ms \\(scan \\d+ ms\\)"), summary);
+        assertTrue(Long.parseLong(summary.substring(0, summary.indexOf(' '))) >= 40, summary);
+    }
+
+    @Test
+    void countersOnlyShowOnceFilesWereScanned() {
+        ExecutionMetrics metrics = new ExecutionMetrics();
+        assertFalse(metrics.summary().contains("scanned"));
+
+        metrics.add(ExecutionMetrics.Counter.SCANNED, 3);
+        metrics.add(ExecutionMetrics.Counter.COPIED, 1);
+        metrics.add(ExecutionMetrics.Counter.UP_TO_DATE, 2);
+        metrics.add(ExecutionMetrics.Counter.BYTES_WRITTEN, 2048);
+
+        assertEquals(
+                "0 ms: 3 scanned, 0 excluded, 1 copied, 0 filtered, 2 up to date, 0 B read, 2.0 kB written",
+                metrics.summary());
+    }
+
+    @Test
+    void reportIsJson() throws Exception {
+        ExecutionMetrics metrics = new ExecutionMetrics();
+        metrics.add(ExecutionMetrics.Counter.FILTERED, 4);
+        try (ExecutionMetrics.Timer timer = metrics.time("user filter \"quoted\"")) {
+            // nothing
+        }
+        Path report = directory.resolve("target/metrics.json");
+
+        metrics.write(report, "org.example:app", "resources@default-resources");
+
+        String json = Files.readString(report);
+        assertTrue(json.contains("\"project\": \"org.example:app\""), json);
+        assertTrue(json.contains("\"execution\": \"resources@default-resources\""), json);
+        assertTrue(json.contains("\"start\": " + metrics.start()), json);
+        assertTrue(json.contains("\"filtered\": 4"), json);
+        assertTrue(
+                Pattern.compile("\"user filter \\\\\"quoted\\\\\"\": \\{\"wallMillis\": \\d+, \"cpuMillis\": \\d+}")
+                        .matcher(json)
+                        .find(),
+                json);
+    }
+
+    @Test
+    void threadsAreReportedOnceSet() throws Exception {
+        ExecutionMetrics metrics = new ExecutionMetrics();
+        metrics.add(ExecutionMetrics.Counter.SCANNED, 1);
+        metrics.threads(3);
+        Path report = directory.resolve("target/metrics.json");
+
+        metrics.write(report, "org.example:app", "resources@default-resources");
+
+        assertTrue(metrics.summary().endsWith(" written, 3 at once"), metrics.summary());
+        assertTrue(Files.readString(report).contains("\"threads\": 3,\n"), Files.readString(report));
+    }
+
+    @Test
+    void cpuTimeOfMeasuredTasksOnOtherThreadsAddsUp() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled());
+        ExecutionMetrics metrics = new ExecutionMetrics();
+        Workers.Task spin = () -> {
+            long end = threads.getCurrentThreadCpuTime() + 100_000_000;
+            while (threads.getCurrentThreadCpuTime() < end) {
+                Thread.onSpinWait();
+            }
+            return 0;
+        };
+        try (Workers workers = new Workers(null, 2, 2, false);
+                ExecutionMetrics.Timer timer = metrics.time("filtering")) {
+            workers.run(List.of(timer.measure(spin), timer.measure(spin)));
+        }
+        Path report = directory.resolve("target/metrics.json");
+
+        metrics.write(report, "org.example:app", "resources@default-resources");
+
+        String json = Files.readString(report);
+        Matcher cpu = Pattern.compile("\"cpuMillis\": (\\d+)").matcher(json);
+        assertTrue(cpu.find(), json);
+        assertTrue(Long.parseLong(cpu.group(1)) >= 200, json);
+    }
+
+    @Test
+    void topFilesReport() throws Exception {
+        ExecutionMetrics metrics = new ExecutionMetrics(1);
+        metrics.file(Path.of("small.json"), 5_000_000, 10);
+        metrics.file(Path.of("large.json"), 1_000_000, 4096);
+        Path report = directory.resolve("target/top-files.json");
+
+        metrics.writeTopFiles(report, "org.example:app", "resources@default-resources");
+
+        String json = Files.readString(report);
+        assertTrue(json.contains("\"slowest\": [\n    {\"source\": \"small.json\", \"micros\": 5000}\n  ]"), json);
+        assertTrue(json.contains("\"largest\": [\n    {\"source\": \"large.json\", \"bytes\": 4096}\n  ]"), json);
+    }
+}
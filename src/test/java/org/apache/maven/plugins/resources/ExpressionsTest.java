@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExpressionsTest {
+
+    private static final List<Expressions.Delimiter> DEFAULTS = Expressions.delimiters(null);
+
+    @Test
+    void parseDelimiterSpecifications() {
+        assertEquals(new Expressions.Delimiter("${", "}"), Expressions.Delimiter.parse("${*}"));
+        assertEquals(new Expressions.Delimiter("@", "@"), Expressions.Delimiter.parse("@"));
+        assertEquals(new Expressions.Delimiter("#", "#"), Expressions.Delimiter.parse("#*"));
+    }
+
+    @Test
+    void keysWithDefaultDelimiters() {
+        Set<String> keys = Expressions.keys("url=${db.url}\nuser=@db.user@\nagain=${db.url}", DEFAULTS, false);
+
+        assertEquals(Arrays.asList("db.url", "db.user"), List.copyOf(keys));
+    }
+
+    @Test
+    void keysWithCustomDelimiter() {
+        List<Expressions.Delimiter> delimiters = Expressions.delimiters(List.of("#{*}"));
+
+        assertEquals(Set.of("name"), Expressions.keys("Hello #{name}, ${ignored}", delimiters, false));
+    }
+
+    @Test
+    void expressionsDoNotSpanLines() {
+        String text = "start ${first\nsecond} ${third}";
+
+        assertEquals(Set.of("third"), Expressions.keys(text, DEFAULTS, false));
+        assertEquals(Set.of("first\nsecond", "third"), Expressions.keys(text, DEFAULTS, true));
+    }
+
+    @Test
+    void whitespaceIsPartOfAKey() {
+        assertEquals(Set.of("app name"), Expressions.keys("${app name}", DEFAULTS, false));
+        assertEquals(
+                Set.of("example.com or you"),
+                Expressions.keys("mail me@example.com or you@example.com", DEFAULTS, false));
+    }
+
+    @Test
+    void keysAreNotLongerThanMavenFilteringResolves() {
+        String key = "k".repeat(Expressions.MAX_KEY);
+        String minified = "a{color:red}".repeat(6000);
+
+        assertEquals(Set.of(key), Expressions.keys("${" + key + "}", DEFAULTS, false));
+        assertEquals(Set.of(), Expressions.keys("${" + key + "k}", DEFAULTS, false));
+        assertEquals(Set.of(), Expressions.keys("/* me@example.com */" + minified + "@media{}", DEFAULTS, false));
+    }
+
+    @Test
+    void longKeysCrossingTheRunsOfAReaderAreFound() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            text.append("${").append(i).append(" ".repeat(Expressions.MAX_KEY - 8)).append("} ");
+        }
+
+        ExpressionKeysReader reader = new ExpressionKeysReader(new StringReader(text.toString()), DEFAULTS, false);
+        try (Reader in = reader) {
+            in.transferTo(Writer.nullWriter());
+        }
+
+        assertEquals(40, reader.keys().size());
+        assertEquals(Expressions.keys(text, DEFAULTS, false), reader.keys());
+    }
+
+    @Test
+    void keysReadThroughAReaderAreTheKeysOfTheWholeText() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            text.append("key").append(i).append("=${value.").append(i).append("} @at.").append(i).append("@\n");
+        }
+        text.append("x".repeat(100_000)).append("${in.a.long.run}").append("y".repeat(100_000));
+        text.append("${a key spanning runs} ".repeat(2000));
+
+        ExpressionKeysReader reader = new ExpressionKeysReader(new StringReader(text.toString()), DEFAULTS, false);
+        try (Reader in = reader) {
+            in.transferTo(Writer.nullWriter());
+        }
+
+        assertEquals(Expressions.keys(text, DEFAULTS, false), reader.keys());
+    }
+}
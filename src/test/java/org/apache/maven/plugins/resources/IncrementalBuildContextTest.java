@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Set;
+
+import org.codehaus.plexus.util.Scanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalBuildContextTest {
+
+    @TempDir
+    Path directory;
+
+    private Path resources;
+
+    private Path stateFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        resources = Files.createDirectories(directory.resolve("resources"));
+        stateFile = directory.resolve("target/build-context");
+        write("a.properties", "a");
+        write("b.properties", "b");
+        write("c.properties", "c");
+    }
+
+    @Test
+    void firstBuildReportsEverything() throws Exception {
+        IncrementalBuildContext context = newContext(Set.of());
+
+        assertFalse(context.isIncremental());
+        assertArrayEquals(new String[] {"a.properties", "b.properties", "c.properties"}, scan(context));
+        assertTrue(context.hasDelta("resources/a.properties"));
+    }
+
+    @Test
+    void laterBuildsOnlyReportChanges() throws Exception {
+        build(Set.of());
+
+        write("b.properties", "changed");
+        Files.delete(resources.resolve("c.properties"));
+
+        IncrementalBuildContext context = newContext(Set.of());
+        assertTrue(context.isIncremental());
+        assertArrayEquals(new String[] {"b.properties"}, scan(context));
+        assertFalse(context.hasDelta("resources/a.properties"));
+        assertTrue(context.hasDelta(resources.toFile()));
+
+        Scanner deleted = context.newDeleteScanner(resources.toFile());
+        deleted.scan();
+        assertArrayEquals(new String[] {"c.properties"}, deleted.getIncludedFiles());
+
+        context.commit();
+        assertEquals(0, scan(newContext(Set.of())).length);
+    }
+
+    @Test
+    void knownChangesAreReportedWhateverTheirStamp() throws Exception {
+        build(Set.of());
+
+        IncrementalBuildContext context = newContext(Set.of(resources.resolve("a.properties")));
+        assertArrayEquals(new String[] {"a.properties"}, scan(context));
+
+        Path target = directory.resolve("target/b.properties");
+        Files.copy(resources.resolve("b.properties"), target);
+        Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        assertTrue(context.isUptodate(target.toFile(), resources.resolve("b.properties").toFile()));
+        assertFalse(context.isUptodate(target.toFile(), resources.resolve("a.properties").toFile()));
+    }
+
+    @Test
+    void failedBuildsReportTheSameChangesAgain() throws Exception {
+        build(Set.of());
+        write("a.properties", "changed");
+
+        assertArrayEquals(new String[] {"a.properties"}, scan(newContext(Set.of())));
+        assertArrayEquals(new String[] {"a.properties"}, scan(newContext(Set.of())));
+    }
+
+    @Test
+    void stringValuesAreKept() throws Exception {
+        IncrementalBuildContext context = newContext(Set.of());
+        context.setValue("checksum", "1234");
+        context.setValue("cache", new Object());
+        context.commit();
+
+        IncrementalBuildContext next = newContext(Set.of());
+        assertEquals("1234", next.getValue("checksum"));
+        assertNull(next.getValue("cache"));
+    }
+
+    private void build(Set<Path> changed) throws Exception {
+        IncrementalBuildContext context = newContext(changed);
+        scan(context);
+        context.commit();
+    }
+
+    private IncrementalBuildContext newContext(Set<Path> changed) throws Exception {
+        return new IncrementalBuildContext(stateFile, directory, changed, null);
+    }
+
+    private String[] scan(IncrementalBuildContext context) {
+        Scanner scanner = context.newScanner(resources.toFile(), false);
+        scanner.scan();
+        String[] files = scanner.getIncludedFiles();
+        // the scanner lists in directory order, which the file system decides
+        Arrays.sort(files);
+        return files;
+    }
+
+    private void write(String name, String content) throws Exception {
+        Path file = resources.resolve(name);
+        Files.writeString(file, content);
+        // a distinct stamp even on file systems with a coarse modification time
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalManifestTest {
+
+    private static final FilterValues VALUES =
+            new FilterValues(Collections.emptyList(), new Expressions.Delimiter("${", "}"));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storeAndLoad() throws Exception {
+        Path manifestFile = directory.resolve("manifest");
+        IncrementalManifest manifest = new IncrementalManifest("config");
+        manifest.put(entry("a.properties", Set.of("db.url", "db.user")), VALUES);
+        manifest.put(entry("b.properties", Set.of("app.name")), VALUES);
+        manifest.put(entry("logo.png", Set.of()), VALUES);
+        manifest.store(manifestFile);
+
+        IncrementalManifest loaded = IncrementalManifest.load(manifestFile);
+
+        assertEquals(3, loaded.entries().size());
+        assertEquals(manifest.get(directory.resolve("a.properties")), loaded.get(directory.resolve("a.properties")));
+        assertEquals(Set.of(directory.resolve("a.properties")), loaded.referencing(List.of("db.user")));
+        assertEquals(
+                Set.of(directory.resolve("a.properties"), directory.resolve("b.properties")),
+                loaded.referencing(List.of("db.url", "app.name")));
+        assertTrue(loaded.changedKeys(VALUES).isEmpty());
+    }
+
+    @Test
+    void stringsOverSixtyFourKilobytesAreStored() throws Exception {
+        Path manifestFile = directory.resolve("manifest");
+        String key = "k\u00e9y".repeat(30_000);
+        IncrementalManifest manifest = new IncrementalManifest("config");
+        manifest.put(entry("a.properties", Set.of(key)), VALUES);
+        manifest.store(manifestFile);
+
+        IncrementalManifest loaded = IncrementalManifest.load(manifestFile);
+
+        assertEquals(Set.of(directory.resolve("a.properties")), loaded.referencing(List.of(key)));
+    }
+
+    @Test
+    void loadKeepsTheConfigurationItWasRecordedFor() throws Exception {
+        Path manifestFile = directory.resolve("manifest");
+        IncrementalManifest manifest = new IncrementalManifest("config");
+        manifest.put(entry("a.properties", Set.of("db.url")), VALUES);
+        manifest.store(manifestFile);
+
+        IncrementalManifest loaded = IncrementalManifest.load(manifestFile);
+        assertEquals("config", loaded.configuration());
+        assertEquals(1, loaded.entries().size());
+
+        IncrementalManifest missing = IncrementalManifest.load(directory.resolve("missing"));
+        assertEquals("", missing.configuration());
+        assertTrue(missing.entries().isEmpty());
+    }
+
+    @Test
+    void replacingAnEntryUpdatesTheIndex() {
+        IncrementalManifest manifest = new IncrementalManifest("config");
+        manifest.put(entry("a.properties", Set.of("db.url")), VALUES);
+        manifest.put(entry("a.properties", Set.of("app.name")), VALUES);
+
+        assertTrue(manifest.referencing(List.of("db.url")).isEmpty());
+        assertEquals(Set.of(directory.resolve("a.properties")), manifest.referencing(List.of("app.name")));
+        assertNull(manifest.get(directory.resolve("b.properties")));
+    }
+
+    @Test
+    void digestIsStable() {
+        assertEquals(IncrementalManifest.digest("value"), IncrementalManifest.digest("value"));
+        assertNotEquals(IncrementalManifest.digest("value"), IncrementalManifest.digest("other"));
+    }
+
+    private IncrementalManifest.Entry entry(String name, Set<String> keys) {
+        return new IncrementalManifest.Entry(
+                directory.resolve(name),
+                directory.resolve("out").resolve(name),
+                10,
+                20,
+                IncrementalManifest.digest(name),
+                !keys.isEmpty(),
+                keys);
+    }
+}
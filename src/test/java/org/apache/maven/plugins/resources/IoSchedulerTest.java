@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IoSchedulerTest {
+
+    private final List<String> granted = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void operationsAreBounded() throws Exception {
+        IoScheduler scheduler = new IoScheduler(2, 0);
+        IoScheduler.Ticket first = scheduler.acquire("a", 10);
+        IoScheduler.Ticket second = scheduler.acquire("a", 10);
+
+        Thread third = waitingFor(scheduler, "a", 10, "third");
+        assertEquals(List.of(), granted);
+
+        first.close();
+        third.join(5000);
+        assertEquals(List.of("third"), granted);
+        second.close();
+    }
+
+    @Test
+    void modulesTakeTurns() throws Exception {
+        IoScheduler scheduler = new IoScheduler(1, 0);
+        IoScheduler.Ticket ticket = scheduler.acquire("a", 10);
+        List<Thread> threads = List.of(
+                waitingFor(scheduler, "a", 10, "a2"),
+                waitingFor(scheduler, "a", 10, "a3"),
+                waitingFor(scheduler, "b", 10, "b1"));
+
+        ticket.close();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        assertEquals(List.of("a2", "b1", "a3"), granted);
+    }
+
+    @Test
+    void filesLargerThanTheByteLimitRunAlone() throws Exception {
+        IoScheduler scheduler = new IoScheduler(0, 100);
+        IoScheduler.Ticket small = scheduler.acquire("a", 60);
+
+        Thread large = waitingFor(scheduler, "b", 1000, "large");
+        Thread next = waitingFor(scheduler, "a", 1, "next");
+        assertEquals(List.of(), granted);
+
+        small.close();
+        large.join(5000);
+        next.join(5000);
+        assertEquals(List.of("large", "next"), granted);
+    }
+
+    /**
+     * @return a started thread, already waiting for its turn, that records its name once granted and closes its ticket
+     */
+    private Thread waitingFor(IoScheduler scheduler, String module, long size, String name) throws Exception {
+        Thread thread = new Thread(() -> {
+            try (IoScheduler.Ticket ticket = scheduler.acquire(module, size)) {
+                granted.add(name);
+            } catch (Exception e) {
+                granted.add(e.toString());
+            }
+        });
+        thread.start();
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        return thread;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.BufferedReader;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.api.plugin.Log;
+import org.apache.maven.api.plugin.testing.stubs.ProjectStub;
+import org.apache.maven.shared.filtering.MavenResourcesExecution;
+import org.apache.maven.shared.filtering.MavenResourcesFiltering;
+import org.apache.maven.shared.filtering.Resource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MemoryBudgetTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sharesAreWeightedBySize() {
+        MemoryBudget budget = new MemoryBudget(10 * 1024 * MemoryBudget.BYTES_PER_BYTE);
+        MemoryBudget.Share first = budget.tryAcquire(6 * 1024);
+        assertNotNull(first);
+        assertNull(budget.tryAcquire(6 * 1024));
+
+        MemoryBudget.Share second = budget.tryAcquire(4 * 1024);
+        assertNotNull(second);
+        assertEquals(0, budget.available());
+
+        first.close();
+        first.close();
+        assertEquals(6 * 1024 * MemoryBudget.BYTES_PER_BYTE, budget.available());
+        second.close();
+    }
+
+    @Test
+    void resourcesLargerThanTheBudgetNeverFit() {
+        MemoryBudget budget = new MemoryBudget(1024 * 1024);
+
+        assertNull(budget.tryAcquire(1024 * 1024));
+    }
+
+    @Test
+    void streamedResourcesGiveTheSameOutputsAndKeys() throws Exception {
+        Path resources = Files.createDirectories(directory.resolve("src/main/resources"));
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append("name").append(i).append("=${app.name} @app.version@\n");
+        }
+        Files.writeString(resources.resolve("app.properties"), text);
+        Files.writeString(resources.resolve("logo.txt"), "logo ${app.name}");
+
+        ResourceProcessor buffered = processor("buffered");
+        IncrementalManifest bufferedManifest = buffered.process(execution("buffered"));
+        ResourceProcessor streamed = processor("streamed");
+        streamed.setBudget(new MemoryBudget(1024));
+        IncrementalManifest streamedManifest = streamed.process(execution("streamed"));
+
+        for (String name : List.of("app.properties", "logo.txt")) {
+            assertEquals(
+                    Files.readString(directory.resolve("buffered").resolve(name)),
+                    Files.readString(directory.resolve("streamed").resolve(name)));
+            Path source = resources.resolve(name);
+            assertEquals(bufferedManifest.get(source).hash(), streamedManifest.get(source).hash());
+            assertEquals(bufferedManifest.get(source).keys(), streamedManifest.get(source).keys());
+        }
+        assertEquals(
+                "name0=demo 1.0",
+                Files.readAllLines(directory.resolve("streamed/app.properties")).get(0));
+    }
+
+    @Test
+    void resourcesTooLargeToReadCompletelyAreStreamedWithoutBudget() throws Exception {
+        Path resources = Files.createDirectories(directory.resolve("src/main/resources"));
+        Path source = resources.resolve("large.txt");
+        try (RandomAccessFile file = new RandomAccessFile(source.toFile(), "rw")) {
+            file.write("large\n".getBytes(StandardCharsets.UTF_8));
+            file.setLength(ResourceProcessor.MAX_BUFFERED + 1);
+        }
+
+        MavenResourcesExecution execution = execution("large");
+        execution.getResources().get(0).setFiltering(false);
+        ExecutionMetrics metrics = new ExecutionMetrics();
+        ResourceProcessor processor = processor("large", metrics);
+        processor.setStages(List.of(new ResourceStage() {
+            public boolean accepts(Path source, Path target) {
+                return true;
+            }
+
+            public Reader transform(Reader reader, Path source, Path target) {
+                return reader;
+            }
+        }));
+        IncrementalManifest manifest = processor.process(execution);
+
+        assertEquals(1, metrics.get(ExecutionMetrics.Counter.STREAMED));
+        Path target = directory.resolve("large/large.txt");
+        assertEquals(ResourceProcessor.MAX_BUFFERED + 1, Files.size(target));
+        try (BufferedReader reader = Files.newBufferedReader(target)) {
+            assertEquals("large", reader.readLine());
+        }
+        try (BufferPool.Buffers buffers = new BufferPool(1).take()) {
+            assertEquals(buffers.digest(source), manifest.get(source).hash());
+        }
+    }
+
+    private MavenResourcesExecution execution(String output) {
+        ProjectStub project = new ProjectStub();
+        project.setBasedir(directory);
+        Resource resource = new Resource();
+        resource.setDirectory("src/main/resources");
+        resource.setFiltering(true);
+        MavenResourcesExecution execution = new MavenResourcesExecution(
+                List.of(resource),
+                directory.resolve(output),
+                project,
+                "UTF-8",
+                Collections.emptyList(),
+                Collections.emptyList(),
+                null);
+        execution.setFilterWrappers(
+                List.of(new PropertiesFilterWrapper(Map.of("app.name", "demo", "app.version", "1.0"))));
+        return execution;
+    }
+
+    private ResourceProcessor processor(String output) {
+        return processor(output, new ExecutionMetrics());
+    }
+
+    private ResourceProcessor processor(String output, ExecutionMetrics metrics) {
+        return new ResourceProcessor(
+                proxy(Log.class),
+                proxy(MavenResourcesFiltering.class),
+                "budget",
+                new IncrementalManifest("budget"),
+                new TemplateCache(directory.resolve(output + "-templates"), "budget"),
+                metrics);
+    }
+
+    /**
+     * @return an implementation answering {@code true} to {@code filteredFileExtension}
+     */
+    private static <T> T proxy(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(
+                MemoryBudgetTest.class.getClassLoader(),
+                new Class<?>[] {type},
+                (proxy, method, args) -> method.getReturnType() == boolean.class ? Boolean.TRUE : null));
+    }
+}
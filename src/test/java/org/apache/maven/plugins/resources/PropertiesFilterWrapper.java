@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.shared.filtering.FilterWrapper;
+
+/**
+ * Replaces the {@code ${*}} and {@code @} expressions it can resolve from a map, like the default filter wrappers do.
+ */
+class PropertiesFilterWrapper extends FilterWrapper {
+
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}\\s]+)}|@([^@\\s]+)@");
+
+    private final Map<String, String> properties;
+
+    PropertiesFilterWrapper(Map<String, String> properties) {
+        this.properties = properties;
+    }
+
+    public Reader getReader(Reader reader) {
+        StringBuilder text = new StringBuilder();
+        try {
+            char[] buffer = new char[1024];
+            for (int read; (read = reader.read(buffer)) >= 0; ) {
+                text.append(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Matcher matcher = EXPRESSION.matcher(text);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String key = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+            matcher.appendReplacement(result, Matcher.quoteReplacement(properties.getOrDefault(key, matcher.group())));
+        }
+        matcher.appendTail(result);
+        return new StringReader(result.toString());
+    }
+}
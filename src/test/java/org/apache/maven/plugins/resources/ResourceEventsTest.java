@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourceEventsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void onlyEnabledEventsAreRecorded() throws Exception {
+        Path file = directory.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.apache.maven.plugins.resources.File");
+            recording.start();
+
+            ResourceEvents.File event = new ResourceEvents.File();
+            event.begin();
+            event.report(Path.of("src/app.properties"), Path.of("target/app.properties"), 42, true, false);
+
+            ResourceEvents.Scan scan = new ResourceEvents.Scan();
+            scan.begin();
+            scan.report(Path.of("src"), 1, 0);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("org.apache.maven.plugins.resources.File", event.getEventType().getName());
+        assertEquals(Path.of("src/app.properties").toString(), event.getString("source"));
+        assertEquals(42, event.getLong("size"));
+        assertTrue(event.getBoolean("filtered"));
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.api.plugin.Log;
+import org.apache.maven.api.plugin.testing.stubs.ProjectStub;
+import org.apache.maven.shared.filtering.MavenResourcesExecution;
+import org.apache.maven.shared.filtering.MavenResourcesFiltering;
+import org.apache.maven.shared.filtering.Resource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Guards the incremental engine against algorithmic regressions on large trees, by time and memory ceilings per file.
+ * These tests take minutes and only run with {@code -Dresources.scaleTests=true}, which also activates the
+ * {@code scale-tests} profile running them with a fixed heap of 1 GB; {@code -Dresources.scaleTests.files} changes the
+ * number of files, 200000 by default.
+ * <p>
+ * On a developer machine with an SSD, 200000 files take 0.29 ms per file for a full build, 0.023 ms for a no-op one,
+ * 0.020 ms for an up to date check, and 1.4 kB of manifest: the time ceilings are about four times that, the memory one
+ * about one and a half.
+ */
+@EnabledIfSystemProperty(named = "resources.scaleTests", matches = "true")
+class ResourceProcessorScaleTest {
+
+    private static final int FILES = Integer.getInteger("resources.scaleTests.files", 200_000);
+
+    private static final long FULL_BUILD_NANOS_PER_FILE = 1_000_000;
+
+    private static final long NO_OP_BUILD_NANOS_PER_FILE = 100_000;
+
+    private static final long UP_TO_DATE_CHECK_NANOS_PER_FILE = 64_000;
+
+    private static final long MANIFEST_BYTES_PER_FILE = 2048;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void fullAndNoOpBuildsStayWithinTheirCeilings() throws Exception {
+        ResourceTreeGenerator.Tree tree =
+                new ResourceTreeGenerator().files(FILES).fanOut(20).depth(2).generate(resources());
+        MavenResourcesExecution execution = execution(tree);
+
+        long heap = usedHeap();
+        long start = System.nanoTime();
+        IncrementalManifest built = processor(new IncrementalManifest("")).process(execution);
+        long fullBuild = System.nanoTime() - start;
+        long manifest = usedHeap() - heap;
+
+        start = System.nanoTime();
+        ResourceProcessor noOp = processor(built);
+        noOp.process(execution);
+        long noOpBuild = System.nanoTime() - start;
+
+        assertEquals(FILES, built.entries().size());
+        assertTrue(noOp.processed().isEmpty());
+        assertTrue(fullBuild < FILES * FULL_BUILD_NANOS_PER_FILE, "full build took " + fullBuild / 1_000_000 + " ms");
+        assertTrue(noOpBuild < FILES * NO_OP_BUILD_NANOS_PER_FILE, "no-op build took " + noOpBuild / 1_000_000 + " ms");
+        assertTrue(manifest < FILES * MANIFEST_BYTES_PER_FILE, "the manifest takes " + manifest + " bytes");
+    }
+
+    @Test
+    void upToDateCheckStaysWithinItsCeiling() throws Exception {
+        ResourceTreeGenerator.Tree tree =
+                new ResourceTreeGenerator().files(FILES).fanOut(20).depth(2).generate(resources());
+        MavenResourcesExecution execution = execution(tree);
+        IncrementalManifest built = processor(new IncrementalManifest("")).process(execution);
+        assertNull(processor(built).findChange(execution));
+
+        long start = System.nanoTime();
+        String change = processor(built).findChange(execution);
+        long check = System.nanoTime() - start;
+
+        assertNull(change);
+        assertTrue(check < FILES * UP_TO_DATE_CHECK_NANOS_PER_FILE, "the check took " + check / 1_000_000 + " ms");
+    }
+
+    @Test
+    void changingOneFileOnlyProcessesThatFile() throws Exception {
+        ResourceTreeGenerator.Tree tree =
+                new ResourceTreeGenerator().files(FILES).fanOut(20).depth(2).generate(resources());
+        MavenResourcesExecution execution = execution(tree);
+        IncrementalManifest built = processor(new IncrementalManifest("")).process(execution);
+
+        Path changed = tree.directory().resolve("d1/d0/file1.properties");
+        Files.writeString(changed, "changed=${key.1}\n");
+        Files.setLastModifiedTime(changed, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+
+        assertEquals(changed + " changed", processor(built).findChange(execution));
+        ResourceProcessor processor = processor(built);
+        IncrementalManifest next = processor.process(execution);
+        assertEquals(Collections.singleton(changed), processor.processed());
+        assertNull(processor(next).findChange(execution));
+    }
+
+    private Path resources() {
+        return directory.resolve("src/main/resources");
+    }
+
+    private MavenResourcesExecution execution(ResourceTreeGenerator.Tree tree) {
+        ProjectStub project = new ProjectStub();
+        project.setBasedir(directory);
+        Resource resource = new Resource();
+        resource.setDirectory("src/main/resources");
+        resource.setFiltering(true);
+        MavenResourcesExecution execution = new MavenResourcesExecution(
+                List.of(resource),
+                directory.resolve("target/classes"),
+                project,
+                "UTF-8",
+                Collections.emptyList(),
+                Collections.emptyList(),
+                null);
+        execution.setFilterWrappers(List.of(new PropertiesFilterWrapper(tree.properties())));
+        return execution;
+    }
+
+    private ResourceProcessor processor(IncrementalManifest previous) {
+        return new ResourceProcessor(
+                proxy(Log.class),
+                proxy(MavenResourcesFiltering.class),
+                "scale",
+                previous,
+                new TemplateCache(directory.resolve("target/templates"), "scale"),
+                new ExecutionMetrics());
+    }
+
+    /**
+     * @return an implementation answering {@code true} to {@code filteredFileExtension} unless the file is a png
+     */
+    private static <T> T proxy(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(
+                ResourceProcessorScaleTest.class.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+                    if (method.getName().equals("filteredFileExtension")) {
+                        return !String.valueOf(args[0]).endsWith(".png");
+                    }
+                    return method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+                }));
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
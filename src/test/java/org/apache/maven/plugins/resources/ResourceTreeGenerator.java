@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates deterministic resource trees of any size for scale tests: the same settings always give the same
+ * directories, files and contents.
+ * <p>
+ * The files are spread evenly over the leaves of a directory tree of {@link #fanOut(int)} subdirectories per level
+ * and {@link #depth(int)} levels. Their sizes follow a log-uniform distribution between {@link #minSize(int)} and
+ * {@link #maxSize(int)}, so that most files are small and a few are large, as in real projects. A share of the files
+ * are binary {@code .png} files of random bytes, the others are {@code .properties} files whose lines reference one of
+ * the {@link #keys(int)} filter keys with the probability of {@link #expressionDensity(double)}.
+ */
+class ResourceTreeGenerator {
+
+    /**
+     * What was generated.
+     *
+     * @param directory the resource directory
+     * @param files the number of files
+     * @param binaryFiles the number of binary files among them
+     * @param bytes the total size of the files
+     * @param properties the values of all the keys the files may reference
+     */
+    record Tree(Path directory, int files, int binaryFiles, long bytes, Map<String, String> properties) {}
+
+    private long seed = 1;
+
+    private int files = 1000;
+
+    private int fanOut = 10;
+
+    private int depth = 2;
+
+    private int minSize = 32;
+
+    private int maxSize = 4096;
+
+    private double expressionDensity = 0.2;
+
+    private double binaryShare = 0.05;
+
+    private int keys = 100;
+
+    ResourceTreeGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    ResourceTreeGenerator files(int files) {
+        this.files = files;
+        return this;
+    }
+
+    ResourceTreeGenerator fanOut(int fanOut) {
+        this.fanOut = fanOut;
+        return this;
+    }
+
+    ResourceTreeGenerator depth(int depth) {
+        this.depth = depth;
+        return this;
+    }
+
+    ResourceTreeGenerator minSize(int minSize) {
+        this.minSize = minSize;
+        return this;
+    }
+
+    ResourceTreeGenerator maxSize(int maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * @param expressionDensity the probability of a line of a text file to reference a key
+     * @return this generator
+     */
+    ResourceTreeGenerator expressionDensity(double expressionDensity) {
+        this.expressionDensity = expressionDensity;
+        return this;
+    }
+
+    /**
+     * @param binaryShare the probability of a file to be binary
+     * @return this generator
+     */
+    ResourceTreeGenerator binaryShare(double binaryShare) {
+        this.binaryShare = binaryShare;
+        return this;
+    }
+
+    ResourceTreeGenerator keys(int keys) {
+        this.keys = keys;
+        return this;
+    }
+
+    /**
+     * @param directory the resource directory to generate, created if missing
+     * @return what was generated
+     * @throws IOException if a file cannot be written
+     */
+    Tree generate(Path directory) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        int leaves = (int) Math.pow(fanOut, depth);
+        Path[] leafDirectories = new Path[leaves];
+        int binaryFiles = 0;
+        long bytes = 0;
+        for (int i = 0; i < files; i++) {
+            int leaf = i % leaves;
+            if (leafDirectories[leaf] == null) {
+                leafDirectories[leaf] = Files.createDirectories(directory.resolve(leafPath(leaf)));
+            }
+            int size = (int) Math.round(minSize * Math.pow((double) maxSize / minSize, random.nextDouble()));
+            byte[] content;
+            String name;
+            if (random.nextDouble() < binaryShare) {
+                content = new byte[size];
+                random.nextBytes(content);
+                name = "image" + i + ".png";
+                binaryFiles++;
+            } else {
+                content = text(random, i, size);
+                name = "file" + i + ".properties";
+            }
+            Files.write(leafDirectories[leaf].resolve(name), content);
+            bytes += content.length;
+        }
+
+        Map<String, String> properties = new HashMap<>();
+        for (int key = 0; key < keys; key++) {
+            properties.put("key." + key, "value-" + key);
+        }
+        return new Tree(directory, files, binaryFiles, bytes, properties);
+    }
+
+    /**
+     * @return the path of a leaf directory, one {@code dN} element per level
+     */
+    private String leafPath(int leaf) {
+        StringBuilder path = new StringBuilder();
+        for (int level = 0; level < depth; level++) {
+            path.append(path.length() > 0 ? "/" : "").append('d').append(leaf % fanOut);
+            leaf /= fanOut;
+        }
+        return path.length() > 0 ? path.toString() : ".";
+    }
+
+    private byte[] text(SplittableRandom random, int file, int size) {
+        StringBuilder text = new StringBuilder(size + 64);
+        for (int line = 0; text.length() < size; line++) {
+            text.append("file").append(file).append(".line").append(line).append('=');
+            if (random.nextDouble() < expressionDensity) {
+                text.append("${key.").append(random.nextInt(keys)).append('}');
+            } else {
+                text.append("a plain value without expressions");
+            }
+            text.append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourceWatcherTest {
+
+    private static final long QUIET_PERIOD = 300;
+
+    private static final long MAX_BATCH_TIME = 5000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void changesInOneBurstAreOneBatch() throws Exception {
+        Path resources = Files.createDirectories(directory.resolve("resources"));
+        try (ResourceWatcher watcher = new ResourceWatcher(List.of(resources), List.of())) {
+            Files.writeString(resources.resolve("a.properties"), "a");
+            Files.writeString(resources.resolve("b.properties"), "b");
+
+            Set<Path> changes = watcher.awaitChanges(QUIET_PERIOD, MAX_BATCH_TIME);
+
+            assertTrue(changes.contains(resources.resolve("a.properties")));
+            assertTrue(changes.contains(resources.resolve("b.properties")));
+        }
+    }
+
+    @Test
+    void continuousChangesEndTheBatchAfterTheMaximumTime() throws Exception {
+        Path resources = Files.createDirectories(directory.resolve("resources"));
+        Path file = resources.resolve("a.properties");
+        try (ResourceWatcher watcher = new ResourceWatcher(List.of(resources), List.of())) {
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int i = 0; !Thread.currentThread().isInterrupted(); i++) {
+                        Files.writeString(file, "a=" + i);
+                        Thread.sleep(QUIET_PERIOD / 10);
+                    }
+                } catch (Exception e) {
+                    // stopped
+                }
+            });
+            writer.start();
+            try {
+                long start = System.nanoTime();
+                Set<Path> changes = watcher.awaitChanges(QUIET_PERIOD, 1000);
+
+                assertTrue(changes.contains(file));
+                assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(MAX_BATCH_TIME));
+            } finally {
+                writer.interrupt();
+                writer.join();
+            }
+        }
+    }
+
+    @Test
+    void newDirectoriesAreWatched() throws Exception {
+        Path resources = Files.createDirectories(directory.resolve("resources"));
+        try (ResourceWatcher watcher = new ResourceWatcher(List.of(resources), List.of())) {
+            Path nested = Files.createDirectories(resources.resolve("nested"));
+            watcher.awaitChanges(QUIET_PERIOD, MAX_BATCH_TIME);
+
+            Files.writeString(nested.resolve("c.properties"), "c");
+
+            assertTrue(watcher.awaitChanges(QUIET_PERIOD, MAX_BATCH_TIME).contains(nested.resolve("c.properties")));
+        }
+    }
+
+    @Test
+    void missingDirectoriesAreWatchedOnceCreated() throws Exception {
+        Path resources = directory.resolve("src/main/resources");
+        try (ResourceWatcher watcher = new ResourceWatcher(List.of(resources), List.of())) {
+            Files.createDirectories(resources.resolve("nested"));
+            Files.writeString(resources.resolve("nested/a.properties"), "a");
+
+            Set<Path> changes = watcher.awaitChanges(QUIET_PERIOD, MAX_BATCH_TIME);
+
+            assertTrue(changes.contains(resources.resolve("nested/a.properties")));
+
+            Files.writeString(resources.resolve("b.properties"), "b");
+
+            assertTrue(watcher.awaitChanges(QUIET_PERIOD, MAX_BATCH_TIME).contains(resources.resolve("b.properties")));
+        }
+    }
+
+    @Test
+    void onlyTheWatchedFilesOfOtherDirectoriesAreReported() throws Exception {
+        Path resources = Files.createDirectories(directory.resolve("resources"));
+        Path filter = directory.resolve("filter.properties");
+        Files.writeString(filter, "name=first");
+        try (ResourceWatcher watcher = new ResourceWatcher(List.of(resources), List.of(filter))) {
+            Files.writeString(directory.resolve("unrelated.txt"), "ignored");
+            Files.writeString(filter, "name=second");
+
+            Set<Path> changes = watcher.awaitChanges(QUIET_PERIOD, MAX_BATCH_TIME);
+
+            assertEquals(Set.of(filter.toAbsolutePath()), changes);
+            assertFalse(changes.contains(directory.resolve("unrelated.txt")));
+        }
+    }
+}
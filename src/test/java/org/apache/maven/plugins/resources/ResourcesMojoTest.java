@@ -19,25 +19,42 @@
 package org.apache.maven.plugins.resources;
 
 import java.io.BufferedReader;
+import java.io.FilterReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.maven.api.Project;
 import org.apache.maven.api.di.Provides;
 import org.apache.maven.api.di.Singleton;
+import org.apache.maven.api.plugin.MojoException;
 import org.apache.maven.api.plugin.testing.Basedir;
 import org.apache.maven.api.plugin.testing.InjectMojo;
 import org.apache.maven.api.plugin.testing.MojoTest;
 import org.apache.maven.api.plugin.testing.stubs.SessionMock;
+import org.apache.maven.api.services.Lookup;
 import org.apache.maven.impl.InternalSession;
 import org.apache.maven.plugins.resources.stub.MavenProjectResourcesStub;
+import org.apache.maven.shared.filtering.MavenFilteringException;
+import org.apache.maven.shared.filtering.MavenResourcesExecution;
+import org.apache.maven.shared.filtering.MavenResourcesFiltering;
 import org.apache.maven.shared.filtering.Resource;
 import org.junit.jupiter.api.Test;
 
@@ -46,6 +63,7 @@ import static org.apache.maven.api.plugin.testing.MojoExtension.setVariableValue
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @MojoTest
@@ -361,6 +379,37 @@ class ResourcesMojoTest {
         assertContent(resourcesDir + "/file4.txt", checkString);
     }
 
+    @Test
+    @InjectMojo(goal = "resources", pom = CONFIG_XML)
+    @Basedir
+    void expressionsWithWhitespaceAreRefilteredOnceTheirValueChanged(ResourcesMojo mojo) throws Exception {
+        assertNotNull(mojo);
+
+        MavenProjectResourcesStub project = (MavenProjectResourcesStub) mojo.project;
+
+        project.addFile("file4.txt", "${app name} ${app.name}");
+        project.setResourceFiltering(true);
+        project.addProperty("app name", "spaced");
+        project.addProperty("app.name", "demo");
+        project.cleanBuildEnvironment();
+        project.setupBuildEnvironment();
+
+        setVariableValueToObject(mojo, "project", project);
+        setVariableValueToObject(mojo, "resources", getResources(project));
+        setVariableValueToObject(mojo, "outputDirectory", Paths.get(project.getOutputDirectory()));
+        setVariableValueToObject(mojo, "buildFilters", Collections.emptyList());
+        setVariableValueToObject(mojo, "useBuildFilters", Boolean.TRUE);
+        setVariableValueToObject(mojo, "incremental", Boolean.TRUE);
+        mojo.execute();
+
+        assertContent(project.getOutputDirectory() + "/file4.txt", "spaced demo");
+
+        project.addProperty("app name", "other");
+        mojo.execute();
+
+        assertContent(project.getOutputDirectory() + "/file4.txt", "other demo");
+    }
+
     /**
      */
     @Test
@@ -604,6 +653,414 @@ class ResourcesMojoTest {
                 new String(Files.readAllBytes(Paths.get(resourcesDir, "path-listing.txt"))));
     }
 
+    @Test
+    @InjectMojo(goal = "resources", pom = CONFIG_XML)
+    @Basedir
+    void incrementalRebuildOnlyFiltersResourcesUsingChangedValues(ResourcesMojo mojo) throws Exception {
+        assertNotNull(mojo);
+
+        MavenProjectResourcesStub project = (MavenProjectResourcesStub) mojo.project;
+
+        project.addProperty("db.url", "jdbc:h2:mem:first");
+        project.addProperty("app.name", "demo");
+        project.addFile("db.properties", "url=${db.url}");
+        project.addFile("app.properties", "name=${app.name}");
+        project.setResourceFiltering(true);
+
+        project.cleanBuildEnvironment();
+        project.setupBuildEnvironment();
+
+        setVariableValueToObject(mojo, "project", project);
+        setVariableValueToObject(mojo, "resources", getResources(project));
+        setVariableValueToObject(mojo, "outputDirectory", Paths.get(project.getOutputDirectory()));
+        setVariableValueToObject(mojo, "buildFilters", Collections.emptyList());
+        setVariableValueToObject(mojo, "useBuildFilters", Boolean.TRUE);
+        setVariableValueToObject(mojo, "incremental", Boolean.TRUE);
+        mojo.execute();
+
+        String resourcesDir = project.getOutputDirectory();
+        assertContent(resourcesDir + "/db.properties", "url=jdbc:h2:mem:first");
+        assertContent(resourcesDir + "/app.properties", "name=demo");
+
+        FileTime untouched = FileTime.fromMillis(0);
+        Path app = Paths.get(resourcesDir, "app.properties");
+        Files.setLastModifiedTime(app, untouched);
+
+        project.addProperty("db.url", "jdbc:h2:mem:second");
+        mojo.execute();
+
+        assertContent(resourcesDir + "/db.properties", "url=jdbc:h2:mem:second");
+        assertEquals(untouched, Files.getLastModifiedTime(app));
+    }
+
+    @Test
+    @InjectMojo(goal = "resources", pom = CONFIG_XML)
+    @Basedir
+    void incrementalRebuildDeletesOutputsOfDeletedResources(ResourcesMojo mojo) throws Exception {
+        assertNotNull(mojo);
+
+        MavenProjectResourcesStub project = (MavenProjectResourcesStub) mojo.project;
+
+        project.addFile("kept.txt", "kept");
+        project.addFile("deleted.txt", "deleted");
+
+        project.cleanBuildEnvironment();
+        project.setupBuildEnvironment();
+
+        setVariableValueToObject(mojo, "project", project);
+        setVariableValueToObject(mojo, "resources", getResources(project));
+        setVariableValueToObject(mojo, "outputDirectory", Paths.get(project.getOutputDirectory()));
+        setVariableValueToObject(mojo, "buildFilters", Collections.emptyList());
+        setVariableValueToObject(mojo, "useBuildFilters", Boolean.TRUE);
+        setVariableValueToObject(mojo, "incremental", Boolean.TRUE);
+        mojo.execute();
+
+        String resourcesDir = project.getOutputDirectory();
+        assertTrue(Files.exists(Paths.get(resourcesDir, "deleted.txt")));
+
+        Files.delete(Paths.get(project.getResourcesDirectory(), "deleted.txt"));
+        mojo.execute();
+
+        assertContent(resourcesDir + "/kept.txt", "kept");
+        assertFalse(Files.exists(Paths.get(resourcesDir, "deleted.txt")));
+    }
+
+    @Test
+    @InjectMojo(goal = "resources", pom = CONFIG_XML)
+    @Basedir
+    void incrementalRebuildDeletesOutputsOfNewlyExcludedResources(ResourcesMojo mojo) throws Exception {
+        assertNotNull(mojo);
+
+        MavenProjectResourcesStub project = (MavenProjectResourcesStub) mojo.project;
+
+        project.addFile("kept.txt", "kept");
+        project.addFile("excluded.txt", "excluded");
+
+        project.cleanBuildEnvironment();
+        project.setupBuildEnvironment();
+
+        List<Resource> resources = getResources(project);
+        setVariableValueToObject(mojo, "project", project);
+        setVariableValueToObject(mojo, "resources", resources);
+        setVariableValueToObject(mojo, "outputDirectory", Paths.get(project.getOutputDirectory()));
+        setVariableValueToObject(mojo, "buildFilters", Collections.emptyList());
+        setVariableValueToObject(mojo, "useBuildFilters", Boolean.TRUE);
+        setVariableValueToObject(mojo, "incremental", Boolean.TRUE);
+        mojo.execute();
+
+        String resourcesDir = project.getOutputDirectory();
+        assertTrue(Files.exists(Paths.get(resourcesDir, "excluded.txt")));
+
+        resources.forEach(resource -> resource.setExcludes(List.of("excluded.txt")));
+        mojo.execute();
+
+        assertContent(resourcesDir + "/kept.txt", "kept");
+        assertFalse(Files.exists(Paths.get(resourcesDir, "excluded.txt")));
+    }
+
+    @Test
+    @InjectMojo(goal = "resources", pom = CONFIG_XML)
+    @Basedir
+    void watchedUpdatesOnlyLookAtTheChangedPaths(ResourcesMojo mojo) throws Exception {
+        assertNotNull(mojo);
+
+        MavenProjectResourcesStub project = (MavenProjectResourcesStub) mojo.project;
+
+        project.addFile("a.txt", "a");
+        project.addFile("b.txt", "b");
+        project.addFile("c.txt", "c");
+
+        project.cleanBuildEnvironment();
+        project.setupBuildEnvironment();
+
+        setVariableValueToObject(mojo, "project", project);
+        setVariableValueToObject(mojo, "resources", getResources(project));
+        setVariableValueToObject(mojo, "outputDirectory", Paths.get(project.getOutputDirectory()));
+        setVariableValueToObject(mojo, "buildFilters", Collections.emptyList());
+        setVariableValueToObject(mojo, "useBuildFilters", Boolean.TRUE);
+        setVariableValueToObject(mojo, "incremental", Boolean.TRUE);
+        setVariableValueToObject(mojo, "shareScans", Boolean.TRUE);
+        mojo.execute();
+
+        Path sources = Paths.get(project.getResourcesDirectory());
+        Path outputs = Paths.get(project.getOutputDirectory());
+        Files.writeString(sources.resolve("a.txt"), "new a");
+        Files.writeString(sources.resolve("b.txt"), "new b");
+        Files.delete(sources.resolve("c.txt"));
+        Files.writeString(sources.resolve("d.txt"), "d");
+        mojo.doExecute(Set.of(sources.resolve("a.txt"), sources.resolve("c.txt"), sources.resolve("d.txt")));
+
+        assertEquals("new a", Files.readString(outputs.resolve("a.txt")));
+        // not reported as changed, so not even looked at
+        assertEquals("b", Files.readString(outputs.resolve("b.txt")));
+        assertFalse(Files.exists(outputs.resolve("c.txt")));
+        assertEquals("d", Files.readString(outputs.resolve("d.txt")));
+
+        mojo.doExecute(Set.of(sources.resolve("b.txt")));
+
+        assertEquals("new b", Files.readString(outputs.resolve("b.txt")));
+        assertEquals("d", Files.readString(outputs.resolve("d.txt")));
+    }
+
+    @Test
+    @InjectMojo(goal = "resources", pom = CONFIG_XML)
+    @Basedir
+    void checkUpToDateFailsOnlyOnceAResourceChanged(ResourcesMojo mojo) throws Exception {
+        assertNotNull(mojo);
+
+        MavenProjectResourcesStub project = (MavenProjectResourcesStub) mojo.project;
+
+        project.addProperty("app.name", "demo");
+        project.addFile("app.properties", "name=${app.name}");
+        project.addFile("logo.txt", "logo");
+        project.setResourceFiltering(true);
+
+        project.cleanBuildEnvironment();
+        project.setupBuildEnvironment();
+
+        setVariableValueToObject(mojo, "project", project);
+        setVariableValueToObject(mojo, "resources", getResources(project));
+        setVariableValueToObject(mojo, "outputDirectory", Paths.get(project.getOutputDirectory()));
+        setVariableValueToObject(mojo, "buildFilters", Collections.emptyList());
+        setVariableValueToObject(mojo, "useBuildFilters", Boolean.TRUE);
+        setVariableValueToObject(mojo, "incremental", Boolean.TRUE);
+        mojo.execute();
+
+        setVariableValueToObject(mojo, "checkUpToDate", Boolean.TRUE);
+        mojo.execute();
+
+        project.addProperty("app.name", "other");
+        ResourcesOutOfDateException e = assertThrows(ResourcesOutOfDateException.class, mojo::execute);
+        assertEquals("the value of app.name changed", e.getChange());
+        assertContent(project.getOutputDirectory() + "/app.properties", "name=demo");
+    }
+
+    @Test
+    @InjectMojo(goal = "resources", pom = CONFIG_XML)
+    @Basedir
+    void metricsReportCountsWhatTheExecutionDid(ResourcesMojo mojo) throws Exception {
+        assertNotNull(mojo);
+
+        MavenProjectResourcesStub project = (MavenProjectResourcesStub) mojo.project;
+
+        project.addProperty("app.name", "demo");
+        project.addFile("app.properties", "name=${app.name}");
+        project.addFile("logo.txt", "logo");
+        project.setResourceFiltering(true);
+
+        project.cleanBuildEnvironment();
+        project.setupBuildEnvironment();
+
+        setVariableValueToObject(mojo, "project", project);
+        setVariableValueToObject(mojo, "resources", getResources(project));
+        setVariableValueToObject(mojo, "outputDirectory", Paths.get(project.getOutputDirectory()));
+        setVariableValueToObject(mojo, "buildFilters", Collections.emptyList());
+        setVariableValueToObject(mojo, "useBuildFilters", Boolean.TRUE);
+        setVariableValueToObject(mojo, "incremental", Boolean.TRUE);
+        setVariableValueToObject(mojo, "metricsReport", Boolean.TRUE);
+        setVariableValueToObject(mojo, "nonFilteredFileExtensions", List.of("txt"));
+        mojo.execute();
+
+        Path report = mojo.getIncrementalStateDirectory().resolve("metrics.json");
+        String metrics = Files.readString(report);
+        assertTrue(metrics.contains("\"scanned\": 2"), metrics);
+        assertTrue(metrics.contains("\"copied\": 1"), metrics);
+        assertTrue(metrics.contains("\"filtered\": 1"), metrics);
+        assertTrue(metrics.contains("\"filter setup\""), metrics);
+
+        mojo.execute();
+
+        metrics = Files.readString(report);
+        assertTrue(metrics.contains("\"upToDate\": 2"), metrics);
+        assertTrue(metrics.contains("\"bytesWritten\": 0"), metrics);
+    }
+
+    @Test
+    @InjectMojo(goal = "resources", pom = CONFIG_XML)
+    @Basedir
+    void topFilesAreRankedWithoutIncrementalBuilds(ResourcesMojo mojo) throws Exception {
+        assertNotNull(mojo);
+
+        MavenProjectResourcesStub project = (MavenProjectResourcesStub) mojo.project;
+
+        project.addFile("app.properties", "name=demo");
+
+        project.cleanBuildEnvironment();
+        project.setupBuildEnvironment();
+
+        setVariableValueToObject(mojo, "project", project);
+        setVariableValueToObject(mojo, "resources", getResources(project));
+        setVariableValueToObject(mojo, "outputDirectory", Paths.get(project.getOutputDirectory()));
+        setVariableValueToObject(mojo, "buildFilters", Collections.emptyList());
+        setVariableValueToObject(mojo, "useBuildFilters", Boolean.TRUE);
+        setVariableValueToObject(mojo, "topFiles", 1);
+        mojo.execute();
+
+        String topFiles = Files.readString(mojo.getIncrementalStateDirectory().resolve("top-files.json"));
+        assertTrue(topFiles.contains("app.properties\", \"bytes\": 9}"), topFiles);
+    }
+
+    @Test
+    @InjectMojo(goal = "resources", pom = CONFIG_XML)
+    @Basedir
+    void resourceStagesTransformTheResourcesTheyAccept(ResourcesMojo mojo) throws Exception {
+        assertNotNull(mojo);
+
+        MavenProjectResourcesStub project = (MavenProjectResourcesStub) mojo.project;
+
+        project.addProperty("app.name", "demo");
+        project.addFile("app.properties", "name=${app.name}");
+        project.addFile("logo.txt", "logo");
+        project.addFile("notes.md", "notes");
+        project.setResourceFiltering(true);
+
+        project.cleanBuildEnvironment();
+        project.setupBuildEnvironment();
+
+        setVariableValueToObject(mojo, "project", project);
+        setVariableValueToObject(mojo, "resources", getResources(project));
+        setVariableValueToObject(mojo, "outputDirectory", Paths.get(project.getOutputDirectory()));
+        setVariableValueToObject(mojo, "buildFilters", Collections.emptyList());
+        setVariableValueToObject(mojo, "useBuildFilters", Boolean.TRUE);
+        setVariableValueToObject(mojo, "incremental", Boolean.TRUE);
+        setVariableValueToObject(mojo, "lookup", new MapLookup(Map.of("upperCase", new UpperCaseStage())));
+        setVariableValueToObject(mojo, "mavenFilteringHints", List.of("upperCase"));
+        mojo.execute();
+
+        String resourcesDir = project.getOutputDirectory();
+        assertContent(resourcesDir + "/app.properties", "NAME=DEMO");
+        assertContent(resourcesDir + "/logo.txt", "LOGO");
+        assertContent(resourcesDir + "/notes.md", "notes");
+
+        project.addProperty("app.name", "other");
+        mojo.execute();
+
+        assertContent(resourcesDir + "/app.properties", "NAME=OTHER");
+    }
+
+    @Test
+    @InjectMojo(goal = "resources", pom = CONFIG_XML)
+    @Basedir
+    void independentUserFilterComponentsRunConcurrently(ResourcesMojo mojo) throws Exception {
+        assertNotNull(mojo);
+
+        MavenProjectResourcesStub project = (MavenProjectResourcesStub) mojo.project;
+
+        project.addFile("logo.txt", "logo");
+
+        project.cleanBuildEnvironment();
+        project.setupBuildEnvironment();
+
+        // each component waits for the other one, and then fails
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Map<String, MavenResourcesFiltering> components = new LinkedHashMap<>();
+        components.put("license", new AwaitingFilter(barrier, "no license"));
+        components.put("index", new AwaitingFilter(barrier, "no index"));
+
+        setVariableValueToObject(mojo, "project", project);
+        setVariableValueToObject(mojo, "resources", getResources(project));
+        setVariableValueToObject(mojo, "outputDirectory", Paths.get(project.getOutputDirectory()));
+        setVariableValueToObject(mojo, "buildFilters", Collections.emptyList());
+        setVariableValueToObject(mojo, "useBuildFilters", Boolean.TRUE);
+        setVariableValueToObject(mojo, "lookup", new MapLookup(components));
+        setVariableValueToObject(mojo, "mavenFilteringHints", List.of("license", "index"));
+
+        MojoException failure = assertThrows(MojoException.class, mojo::execute);
+
+        assertEquals("no license", failure.getMessage());
+        assertEquals(1, failure.getCause().getSuppressed().length);
+        assertEquals("no index", failure.getCause().getSuppressed()[0].getMessage());
+    }
+
+    @Test
+    @InjectMojo(goal = "resources", pom = CONFIG_XML)
+    @Basedir
+    void changeAwareUserFilterComponentsAreToldWhatChanged(ResourcesMojo mojo) throws Exception {
+        assertNotNull(mojo);
+
+        MavenProjectResourcesStub project = (MavenProjectResourcesStub) mojo.project;
+
+        project.addProperty("app.name", "demo");
+        project.addFile("app.properties", "name=${app.name}");
+        project.addFile("logo.txt", "logo");
+        project.addFile("notes.txt", "notes");
+        project.setResourceFiltering(true);
+
+        project.cleanBuildEnvironment();
+        project.setupBuildEnvironment();
+
+        ChangeRecordingFilter filter = new ChangeRecordingFilter();
+        setVariableValueToObject(mojo, "project", project);
+        setVariableValueToObject(mojo, "resources", getResources(project));
+        setVariableValueToObject(mojo, "outputDirectory", Paths.get(project.getOutputDirectory()));
+        setVariableValueToObject(mojo, "buildFilters", Collections.emptyList());
+        setVariableValueToObject(mojo, "useBuildFilters", Boolean.TRUE);
+        setVariableValueToObject(mojo, "incremental", Boolean.TRUE);
+        setVariableValueToObject(mojo, "lookup", new MapLookup(Map.of("changes", filter)));
+        setVariableValueToObject(mojo, "mavenFilteringHints", List.of("changes"));
+        mojo.execute();
+
+        assertFalse(filter.changes.isFullBuild());
+        assertEquals(3, filter.changes.getAddedSources().size());
+        assertEquals(3, filter.changes.getAddedOutputs().size());
+
+        Path sources = Paths.get(project.getResourcesDirectory());
+        Path outputs = Paths.get(project.getOutputDirectory());
+        Files.writeString(sources.resolve("logo.txt"), "new logo");
+        Files.delete(sources.resolve("notes.txt"));
+        mojo.execute();
+
+        assertEquals(Set.of(), filter.changes.getAddedSources());
+        assertEquals(Set.of(sources.resolve("logo.txt")), filter.changes.getModifiedSources());
+        assertEquals(Set.of(sources.resolve("notes.txt")), filter.changes.getDeletedSources());
+        assertEquals(Set.of(outputs.resolve("logo.txt")), filter.changes.getModifiedOutputs());
+        assertEquals(Set.of(outputs.resolve("notes.txt")), filter.changes.getDeletedOutputs());
+        assertFalse(filter.changes.isFilterValuesChanged());
+
+        project.addProperty("app.name", "other");
+        mojo.execute();
+
+        assertEquals(Set.of(), filter.changes.getModifiedSources());
+        assertEquals(Set.of(outputs.resolve("app.properties")), filter.changes.getModifiedOutputs());
+        assertTrue(filter.changes.isFilterValuesChanged());
+    }
+
+    @Test
+    @InjectMojo(goal = "resources", pom = CONFIG_XML)
+    @Basedir
+    void onlyRequestedUserFilterComponentsAreLookedUp(ResourcesMojo mojo) throws Exception {
+        assertNotNull(mojo);
+
+        MavenProjectResourcesStub project = (MavenProjectResourcesStub) mojo.project;
+
+        project.addFile("logo.txt", "logo");
+
+        project.cleanBuildEnvironment();
+        project.setupBuildEnvironment();
+
+        MapLookup lookup = new MapLookup(Map.of("changes", new ChangeRecordingFilter(), "index", new UpperCaseStage()));
+        setVariableValueToObject(mojo, "project", project);
+        setVariableValueToObject(mojo, "resources", getResources(project));
+        setVariableValueToObject(mojo, "outputDirectory", Paths.get(project.getOutputDirectory()));
+        setVariableValueToObject(mojo, "buildFilters", Collections.emptyList());
+        setVariableValueToObject(mojo, "useBuildFilters", Boolean.TRUE);
+        setVariableValueToObject(mojo, "lookup", lookup);
+        mojo.execute();
+
+        assertEquals(List.of(), lookup.lookedUp);
+
+        setVariableValueToObject(mojo, "mavenFilteringHints", List.of("changes"));
+        mojo.execute();
+
+        assertEquals(List.of("changes"), lookup.lookedUp);
+
+        setVariableValueToObject(mojo, "mavenFilteringHints", List.of("missing"));
+        MojoException failure = assertThrows(MojoException.class, mojo::execute);
+
+        assertTrue(failure.getMessage().startsWith("User filter with hint `missing` requested"), failure.getMessage());
+        assertTrue(failure.getMessage().contains("index"), failure.getMessage());
+    }
+
     /**
      * Ensures the file exists and its first line equals the given data.
      */
@@ -636,6 +1093,141 @@ class ResourcesMojoTest {
                 .toList();
     }
 
+    /**
+     * Upper cases all resources but Markdown files, as a stream.
+     */
+    static class UpperCaseStage implements MavenResourcesFiltering, ResourceStage {
+
+        public boolean accepts(Path source, Path target) {
+            return !source.getFileName().toString().endsWith(".md");
+        }
+
+        public Reader transform(Reader reader, Path source, Path target) {
+            return new FilterReader(reader) {
+                public int read() throws IOException {
+                    int c = super.read();
+                    return c < 0 ? c : Character.toUpperCase(c);
+                }
+
+                public int read(char[] buffer, int offset, int length) throws IOException {
+                    int read = super.read(buffer, offset, length);
+                    for (int i = offset; i < offset + read; i++) {
+                        buffer[i] = Character.toUpperCase(buffer[i]);
+                    }
+                    return read;
+                }
+            };
+        }
+
+        public List<String> getDefaultNonFilteredFileExtensions() {
+            return Collections.emptyList();
+        }
+
+        public boolean filteredFileExtension(String fileName, List<String> userNonFilteredFileExtensions) {
+            return false;
+        }
+
+        public void filterResources(MavenResourcesExecution mavenResourcesExecution) throws MavenFilteringException {
+            throw new MavenFilteringException("incremental builds run the stage instead");
+        }
+    }
+
+    /**
+     * An independent component failing once all the components sharing its barrier are running.
+     */
+    static class AwaitingFilter implements MavenResourcesFiltering, IndependentFiltering {
+
+        private final CyclicBarrier barrier;
+
+        private final String failure;
+
+        AwaitingFilter(CyclicBarrier barrier, String failure) {
+            this.barrier = barrier;
+            this.failure = failure;
+        }
+
+        public List<String> getDefaultNonFilteredFileExtensions() {
+            return Collections.emptyList();
+        }
+
+        public boolean filteredFileExtension(String fileName, List<String> userNonFilteredFileExtensions) {
+            return false;
+        }
+
+        public void filterResources(MavenResourcesExecution mavenResourcesExecution) throws MavenFilteringException {
+            try {
+                barrier.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                throw new MavenFilteringException("not run concurrently", e);
+            }
+            throw new MavenFilteringException(failure);
+        }
+    }
+
+    /**
+     * Keeps the changes it was last told about.
+     */
+    static class ChangeRecordingFilter implements MavenResourcesFiltering, ChangeAwareFiltering {
+
+        ResourceChanges changes;
+
+        public List<String> getDefaultNonFilteredFileExtensions() {
+            return Collections.emptyList();
+        }
+
+        public boolean filteredFileExtension(String fileName, List<String> userNonFilteredFileExtensions) {
+            return false;
+        }
+
+        public void filterResources(MavenResourcesExecution mavenResourcesExecution) throws MavenFilteringException {
+            throw new MavenFilteringException("change aware components are told the changes");
+        }
+
+        public void filterResources(MavenResourcesExecution mavenResourcesExecution, ResourceChanges changes) {
+            this.changes = changes;
+        }
+    }
+
+    /**
+     * Looks up the user filter components of a map, recording the hints looked up one by one.
+     */
+    static class MapLookup implements Lookup {
+
+        private final Map<String, MavenResourcesFiltering> components;
+
+        final List<String> lookedUp = new ArrayList<>();
+
+        MapLookup(Map<String, MavenResourcesFiltering> components) {
+            this.components = components;
+        }
+
+        public <T> T lookup(Class<T> type) {
+            throw new UnsupportedOperationException();
+        }
+
+        public <T> T lookup(Class<T> type, String name) {
+            return lookupOptional(type, name).orElseThrow();
+        }
+
+        public <T> Optional<T> lookupOptional(Class<T> type) {
+            throw new UnsupportedOperationException();
+        }
+
+        public <T> Optional<T> lookupOptional(Class<T> type, String name) {
+            lookedUp.add(name);
+            return Optional.ofNullable(components.get(name)).map(type::cast);
+        }
+
+        public <T> List<T> lookupList(Class<T> type) {
+            return components.values().stream().map(type::cast).toList();
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> Map<String, T> lookupMap(Class<T> type) {
+            return (Map<String, T>) components;
+        }
+    }
+
     // TODO: temporary method before upgrade to new API.
     private static Resource newResource(org.apache.maven.api.model.Resource res) {
         Resource resource = new Resource();
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.codehaus.plexus.util.DirectoryScanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class SourceTreesTest {
+
+    @TempDir
+    Path directory;
+
+    private Path resources;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        resources = Files.createDirectories(directory.resolve("resources"));
+        write("a.properties");
+        write("b.xml");
+        write("sub/c.properties");
+    }
+
+    @Test
+    void eachScannerMatchesItsOwnPatterns() {
+        SourceTrees trees = new SourceTrees();
+
+        assertArrayEquals(
+                new String[] {"a.properties", "sub" + File.separator + "c.properties"},
+                scan(trees, new String[] {"**/*.properties"}, new String[0]));
+        assertArrayEquals(
+                new String[] {"a.properties", "b.xml"}, scan(trees, new String[] {"**/**"}, new String[] {"sub/**"}));
+    }
+
+    @Test
+    void directoriesAreOnlyWalkedAgainOnceWrittenInto() throws Exception {
+        SourceTrees trees = new SourceTrees();
+        scan(trees, new String[] {"*"}, new String[0]);
+
+        write("d.properties");
+        assertArrayEquals(new String[] {"a.properties", "b.xml"}, scan(trees, new String[] {"*"}, new String[0]));
+
+        trees.written(directory.resolve("target/classes"));
+        assertArrayEquals(new String[] {"a.properties", "b.xml"}, scan(trees, new String[] {"*"}, new String[0]));
+
+        trees.written(resources.resolve("sub"));
+        assertArrayEquals(
+                new String[] {"a.properties", "b.xml", "d.properties"},
+                scan(trees, new String[] {"*"}, new String[0]));
+    }
+
+    @Test
+    void changedPathsAreListedAgainOnTheirOwn() throws Exception {
+        SourceTrees trees = new SourceTrees();
+        scan(trees, new String[] {"**/**"}, new String[0]);
+
+        write("d.properties");
+        write("sub/e.properties");
+        Files.delete(resources.resolve("b.xml"));
+        trees.changed(List.of(resources.resolve("d.properties"), resources.resolve("b.xml")));
+        assertArrayEquals(
+                new String[] {"a.properties", "d.properties", "sub" + File.separator + "c.properties"},
+                scan(trees, new String[] {"**/**"}, new String[0]));
+
+        trees.changed(List.of(resources.resolve("sub")));
+        assertArrayEquals(
+                new String[] {
+                    "a.properties",
+                    "d.properties",
+                    "sub" + File.separator + "c.properties",
+                    "sub" + File.separator + "e.properties"
+                },
+                scan(trees, new String[] {"**/**"}, new String[0]));
+    }
+
+    @Test
+    void changedPathsBelowOtherChangedPathsAreListedOnce() throws Exception {
+        SourceTrees trees = new SourceTrees();
+        scan(trees, new String[] {"**/**"}, new String[0]);
+
+        write("sub/deeper/d.properties");
+        trees.changed(List.of(
+                resources.resolve("sub/deeper/d.properties"),
+                resources.resolve("sub/deeper"),
+                resources.resolve("sub/c.properties"),
+                resources.resolve("sub")));
+
+        assertArrayEquals(
+                new String[] {
+                    "a.properties",
+                    "b.xml",
+                    "sub" + File.separator + "c.properties",
+                    "sub" + File.separator + "deeper" + File.separator + "d.properties"
+                },
+                scan(trees, new String[] {"**/**"}, new String[0]));
+    }
+
+    private String[] scan(SourceTrees trees, String[] includes, String[] excludes) {
+        DirectoryScanner scanner = trees.newScanner(resources);
+        scanner.setIncludes(includes);
+        scanner.setExcludes(excludes);
+        scanner.scan();
+        String[] files = scanner.getIncludedFiles();
+        Arrays.sort(files);
+        return files;
+    }
+
+    private void write(String name) throws Exception {
+        Path file = resources.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, name);
+    }
+}
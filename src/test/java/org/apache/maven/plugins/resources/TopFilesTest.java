@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopFilesTest {
+
+    @Test
+    void keepsTheHighestValuesOnly() {
+        TopFiles top = new TopFiles(3);
+        long[] values = {5, 1, 9, 3, 7, 2, 8};
+        for (int i = 0; i < values.length; i++) {
+            top.offer(Path.of("file" + i), values[i]);
+        }
+
+        List<TopFiles.Item> items = top.items();
+
+        assertEquals(
+                List.of(
+                        new TopFiles.Item(Path.of("file2"), 9),
+                        new TopFiles.Item(Path.of("file6"), 8),
+                        new TopFiles.Item(Path.of("file4"), 7)),
+                items);
+    }
+
+    @Test
+    void fewerFilesThanItsSize() {
+        TopFiles top = new TopFiles(5);
+        top.offer(Path.of("a"), 1);
+        top.offer(Path.of("b"), 2);
+
+        assertEquals(2, top.items().size());
+        assertEquals(Path.of("b"), top.items().get(0).source());
+    }
+
+    @Test
+    void sizeZeroKeepsNothing() {
+        TopFiles top = new TopFiles(0);
+        top.offer(Path.of("a"), 1);
+
+        assertTrue(top.items().isEmpty());
+    }
+}
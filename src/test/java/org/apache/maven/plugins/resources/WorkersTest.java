@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.resources;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.api.plugin.Log;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkersTest {
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicInteger highest = new AtomicInteger();
+
+    @Test
+    void fixedLevelUsesAllThreads() throws Exception {
+        try (Workers workers = new Workers(log(), 1, 4, false)) {
+            workers.run(tasks(40, 5));
+
+            assertEquals(4, workers.level());
+            assertEquals(4, highest.get());
+        }
+    }
+
+    @Test
+    void adaptiveLevelStaysWithinItsBounds() throws Exception {
+        try (Workers workers = new Workers(log(), 2, 3, true)) {
+            workers.run(tasks(200, 5));
+
+            assertTrue(workers.level() >= 2 && workers.level() <= 3, "level " + workers.level());
+            assertTrue(highest.get() <= 3, "highest " + highest.get());
+        }
+    }
+
+    @Test
+    void virtualThreadsAreBoundedByTheOpenFiles() throws Exception {
+        Workers virtual = Workers.virtual(log(), 3);
+        if (Runtime.version().feature() < 21) {
+            assertNull(virtual);
+            return;
+        }
+        try (Workers workers = virtual) {
+            workers.run(tasks(50, 5));
+
+            assertEquals(3, highest.get());
+        }
+    }
+
+    @Test
+    void firstFailureIsThrownAndLaterTasksSkipped() throws Exception {
+        AtomicInteger run = new AtomicInteger();
+        List<Workers.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int index = i;
+            tasks.add(() -> {
+                run.incrementAndGet();
+                if (index == 0) {
+                    throw new IOException("broken");
+                }
+                pause(5);
+                return 0;
+            });
+        }
+
+        try (Workers workers = new Workers(log(), 1, 2, false)) {
+            IOException e = assertThrows(IOException.class, () -> workers.run(tasks));
+            assertEquals("broken", e.getMessage());
+        }
+        assertTrue(run.get() < 100, run.get() + " tasks run");
+    }
+
+    @Test
+    void plannedTasksStartWithTheLargestAndBatchTheTiny() throws Exception {
+        List<String> run = Collections.synchronizedList(new ArrayList<>());
+        List<Workers.Task> tasks = new ArrayList<>();
+        long[] costs = new long[1002];
+        for (int i = 0; i < 1000; i++) {
+            String name = "tiny" + i;
+            tasks.add(() -> {
+                run.add(name);
+                return 10;
+            });
+            costs[i] = 10;
+        }
+        tasks.add(() -> {
+            run.add("medium");
+            return 0;
+        });
+        costs[1000] = 10_000_000;
+        tasks.add(() -> {
+            run.add("large");
+            return 0;
+        });
+        costs[1001] = 100_000_000;
+
+        try (Workers workers = new Workers(log(), 1, 1, false)) {
+            List<Workers.Task> planned = workers.plan(tasks, costs);
+            assertTrue(planned.size() < 100, planned.size() + " tasks planned");
+            assertEquals(1002, planned.stream().mapToInt(Workers.Task::files).sum());
+
+            workers.run(planned);
+        }
+        assertEquals(List.of("large", "medium"), run.subList(0, 2));
+        assertEquals(1002, new HashSet<>(run).size());
+        assertEquals(1002, run.size());
+    }
+
+    private List<Workers.Task> tasks(int count, long millis) {
+        List<Workers.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(() -> {
+                highest.accumulateAndGet(active.incrementAndGet(), Math::max);
+                pause(millis);
+                active.decrementAndGet();
+                return 1024;
+            });
+        }
+        return tasks;
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Log log() {
+        return (Log) Proxy.newProxyInstance(
+                WorkersTest.class.getClassLoader(),
+                new Class<?>[] {Log.class},
+                (proxy, method, args) -> method.getReturnType() == boolean.class ? Boolean.FALSE : null);
+    }
+}
@@ -176,6 +176,11 @@ public class MavenProjectBuildStub extends MavenProjectBasicStub {
         if (new File(testOutputDirectory).exists()) {
             deleteDirectory(new File(testOutputDirectory));
         }
+
+        File statusDirectory = new File(buildDirectory, "maven-status");
+        if (statusDirectory.exists()) {
+            deleteDirectory(statusDirectory);
+        }
     }
 
     public void setupBuildEnvironment() throws Exception {